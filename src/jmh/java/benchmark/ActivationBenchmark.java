@@ -0,0 +1,63 @@
+package benchmark;
+
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.util.Mechanics;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//output-layer error and layer-wide activation derivatives
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActivationBenchmark {
+    @Param({"16", "512"})
+    public int width;
+
+    @Param({"sigmoid", "mixed"}) // mixed has a Softmax output layer
+    public String activations;
+
+    private Layer output;
+    private List<Mechanics> mechanics;
+    private SimpleMatrix predicted, actual, z;
+    private DMatrixRMaj zBatch, prime;
+    private double[] scratch;
+
+    @Setup
+    public void setup() {
+        NeuralNetwork network = Networks.build(width, 1, activations);
+        output = network.getOutputLayer();
+        mechanics = output.getActualMechanics();
+
+        double[] X = Networks.inputs(1, width)[0];
+        z = output.Z(network.predictWithAllStats(X).get(1));
+        predicted = network.predict(X);
+        actual = Networks.examples(1, width, width).get(0).Y;
+
+        zBatch = new DMatrixRMaj(width, 64);
+        for (int k = 0; k < zBatch.getNumElements(); k++) {
+            zBatch.data[k] = Math.sin(k);
+        }
+        prime = new DMatrixRMaj(width, 64);
+        scratch = new double[2 * width];
+    }
+
+    @Benchmark
+    public SimpleMatrix baseError() {
+        return LearningAlgorithm.baseError(predicted, actual, z, mechanics);
+    }
+
+    @Benchmark
+    public DMatrixRMaj activationsPrime() {
+        output.activationsPrime(zBatch, prime, scratch);
+        return prime;
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.training.Dataset;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.training.NetworkParams;
+import neuralnetwork.training.TrainingExample;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+//full gradient over the training set
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackwardBenchmark {
+    @Param({"64", "1024"})
+    public int examples;
+
+    @Param({"32", "128"})
+    public int width;
+
+    @Param({"sigmoid", "mixed"})
+    public String activations;
+
+    @Param({"list", "dataset", "direct"})
+    public String storage; //TrainingExample objects, or a heap / off-heap Dataset view
+
+    private NeuralNetwork network;
+    private List<TrainingExample> trainingExamples;
+    private LearningAlgorithm sequential, parallel;
+
+    @Setup
+    public void setup() {
+        network = Networks.build(width, 2, activations);
+        trainingExamples = Networks.examples(examples, width, width);
+        if (!storage.equals("list")) {
+            Dataset dataset = storage.equals("direct") ? Dataset.allocateDirect(examples, width, width) : Dataset.allocate(examples, width, width);
+            for (int r = 0; r < examples; r++) {
+                dataset.set(r, trainingExamples.get(r));
+            }
+            trainingExamples = dataset.rows();
+        }
+
+        NetworkParams skeleton = network.getNetworkParams().skeleton();
+        sequential = LearningAlgorithm.BatchGradientDescent(0.01, 1).init(trainingExamples, skeleton);
+        parallel = LearningAlgorithm.BatchGradientDescent(0.01, 1).parallel(ForkJoinPool.commonPool(), 64).init(trainingExamples, skeleton);
+    }
+
+    @Benchmark
+    public NetworkParams calculateGradient() {
+        return sequential.calculateGradient(network, trainingExamples);
+    }
+
+    @Benchmark
+    public NetworkParams parallelCalculateGradient() {
+        return parallel.calculateGradient(network, trainingExamples);
+    }
+}
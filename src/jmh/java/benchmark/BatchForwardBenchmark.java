@@ -0,0 +1,57 @@
+package benchmark;
+
+import neuralnetwork.ForwardWorkspace;
+import neuralnetwork.NeuralNetwork;
+import org.ejml.data.DMatrixRMaj;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+//one op = the whole batch, so perSampleLoop and gemmBatch are directly comparable
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchForwardBenchmark {
+    @Param({"1", "16", "256", "4096"})
+    public int batchSize;
+
+    @Param({"128"})
+    public int width;
+
+    private NeuralNetwork network;
+    private double[][] X;
+    private DMatrixRMaj batch;
+    private ForwardWorkspace sampleWorkspace, batchWorkspace;
+
+    @Setup
+    public void setup() {
+        network = Networks.build(width, 2, "relu");
+        X = Networks.inputs(batchSize, width);
+
+        batch = new DMatrixRMaj(width, batchSize); // one sample per column
+        for (int j = 0; j < batchSize; j++) {
+            for (int i = 0; i < width; i++) {
+                batch.set(i, j, X[j][i]);
+            }
+        }
+
+        sampleWorkspace = network.createWorkspace();
+        batchWorkspace = new ForwardWorkspace(network, batchSize);
+    }
+
+    @Benchmark
+    public void perSampleLoop(Blackhole blackhole) {
+        for (double[] X_j : X) {
+            blackhole.consume(network.predict(X_j, sampleWorkspace));
+        }
+    }
+
+    @Benchmark
+    public DMatrixRMaj gemmBatch() {
+        return network.predictBatch(batch, batchWorkspace);
+    }
+}
@@ -0,0 +1,51 @@
+package benchmark;
+
+import neuralnetwork.CompiledNetwork;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//one CompiledNetwork shared by every benchmark thread; compare ops/s of the two methods for scaling across cores
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentInferenceBenchmark {
+    @Param({"128"})
+    public int width;
+
+    private CompiledNetwork compiled;
+    private double[] X;
+
+    @State(Scope.Thread)
+    public static class Output {
+        double[] output;
+
+        @Setup
+        public void setup(ConcurrentInferenceBenchmark benchmark) {
+            output = new double[benchmark.width];
+        }
+    }
+
+    @Setup
+    public void setup() {
+        compiled = Networks.build(width, 2, "relu").compile();
+        X = Networks.inputs(1, width)[0];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double[] singleThread(Output output) {
+        compiled.predict(X, output.output);
+        return output.output;
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public double[] allCores(Output output) {
+        compiled.predict(X, output.output);
+        return output.output;
+    }
+}
@@ -0,0 +1,67 @@
+package benchmark;
+
+import neuralnetwork.CompiledNetwork;
+import neuralnetwork.ForwardWorkspace;
+import neuralnetwork.NeuralNetwork;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//single-sample inference
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardBenchmark {
+    @Param({"16", "256"})
+    public int width;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"sigmoid", "relu", "mixed"})
+    public String activations;
+
+    private NeuralNetwork network;
+    private CompiledNetwork compiled;
+    private double[] X;
+
+    @State(Scope.Thread)
+    public static class Buffers {
+        ForwardWorkspace workspace;
+        double[] output;
+
+        @Setup
+        public void setup(ForwardBenchmark benchmark) {
+            workspace = benchmark.network.createWorkspace();
+            output = new double[benchmark.width];
+        }
+    }
+
+    @Setup
+    public void setup() {
+        network = Networks.build(width, depth, activations);
+        compiled = network.compile();
+        X = Networks.inputs(1, width)[0];
+    }
+
+    @Benchmark
+    public SimpleMatrix fastPredict() {
+        return network.fastPredict(X);
+    }
+
+    @Benchmark
+    public DMatrixRMaj workspacePredict(Buffers buffers) {
+        return network.predict(X, buffers.workspace);
+    }
+
+    @Benchmark
+    public double[] compiledPredict(Buffers buffers) {
+        compiled.predict(X, buffers.output);
+        return buffers.output;
+    }
+}
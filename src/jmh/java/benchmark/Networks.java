@@ -0,0 +1,83 @@
+package benchmark;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.NetworkParams;
+import neuralnetwork.training.TrainingExample;
+import neuralnetwork.util.MechIndex;
+import neuralnetwork.util.MechNetworkIndex;
+import neuralnetwork.util.Mechanics;
+import neuralnetwork.util.Operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//deterministic networks and data shared by the benchmarks
+public class Networks {
+    public static final long SEED = 42;
+
+    //width inputs, depth hidden layers of width neurons, width outputs
+    //activations: "sigmoid" (everywhere), "relu" (ReLU hidden, Sigmoid output), "mixed" (alternating tanh/ReLU hidden layers
+    //with a Sigmoid neuron spliced into each, Softmax + CategoricalCrossentropy output)
+    public static NeuralNetwork build(int width, int depth, String activations) {
+        int[] sizes = new int[depth + 2];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = width;
+        }
+
+        NeuralNetwork network = new NeuralNetwork(sizes);
+        int output = sizes.length - 1;
+        for (int l = 1; l < output; l++) {
+            Activation hidden;
+            switch (activations) {
+                case "sigmoid": hidden = Activation.Sigmoid; break;
+                case "relu": hidden = Activation.ReLU; break;
+                case "mixed": hidden = (l % 2 == 1) ? Activation.tanh : Activation.ReLU; break;
+                default: throw new IllegalArgumentException(activations);
+            }
+            network.setDenseMechanics(new MechIndex(l, new Mechanics(hidden, Loss.None)));
+
+            if (activations.equals("mixed")) { // heterogeneous layer
+                network.setMechanics(new MechNetworkIndex(l, new MechIndex(width / 2, new Mechanics(Activation.Sigmoid, Loss.None))));
+            }
+        }
+
+        Mechanics outputMechanics = activations.equals("mixed") ? new Mechanics(Activation.Softmax, Loss.CategoricalCrossentropy)
+                                                                : new Mechanics(Activation.Sigmoid, Loss.SquaredError);
+        network.setDenseMechanics(new MechIndex(output, outputMechanics));
+
+        Random random = new Random(SEED);
+        NetworkParams params = network.getNetworkParams();
+        network.setNetworkParams(params.applyEntrywise((theta) -> random.nextGaussian() / Math.sqrt(width)), 1);
+
+        return network;
+    }
+
+    public static double[][] inputs(int count, int size) {
+        Random random = new Random(SEED + 1);
+        double[][] X = new double[count][size];
+        for (double[] X_j : X) {
+            for (int i = 0; i < size; i++) {
+                X_j[i] = random.nextDouble() * 2 - 1;
+            }
+        }
+
+        return X;
+    }
+
+    public static List<TrainingExample> examples(int count, int inputSize, int outputSize) {
+        double[][] X = inputs(count, inputSize);
+        Random random = new Random(SEED + 2);
+
+        List<TrainingExample> examples = new ArrayList<>(count);
+        for (int j = 0; j < count; j++) {
+            double[] Y = new double[outputSize];
+            Y[random.nextInt(outputSize)] = 1.0; // one-hot, valid for every output mechanics above
+            examples.add(new TrainingExample(X[j], Operations.colVector(Y)));
+        }
+
+        return examples;
+    }
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import example.CountryEvaluation;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.training.NetworkParams;
+import neuralnetwork.training.TrainingExample;
+import neuralnetwork.util.MechIndex;
+import neuralnetwork.util.Mechanics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+//wall-clock and epochs until the CountryEvaluation sample data reaches TARGET_COST, from the same starting params
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OptimizerBenchmark {
+    public static final double TARGET_COST = 2.2;
+    public static final int MAX_EPOCHS = 5000;
+    public static final int BATCH_SIZE = 4;
+
+    @Param({"gd", "minibatch", "momentum", "nesterov", "rmsprop", "adam", "adamw"})
+    public String optimizer;
+
+    private CountryEvaluation countryEvaluation;
+    private List<TrainingExample> trainingExamples;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Epochs {
+        public int epochs; //MAX_EPOCHS means the target was never reached
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            epochs = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        countryEvaluation = new CountryEvaluation();
+        trainingExamples = countryEvaluation.sampleData();
+        countryEvaluation.neuralNetwork.setDenseMechanics(
+                new MechIndex(1, new Mechanics(Activation.Sigmoid, Loss.BinaryCrossentropy)),
+                new MechIndex(2, new Mechanics(Activation.Sigmoid, Loss.BinaryCrossentropy))
+        );
+    }
+
+    @Setup(Level.Invocation)
+    public void resetParams() {
+        NeuralNetwork network = countryEvaluation.neuralNetwork;
+        Random random = new Random(Networks.SEED);
+        network.setNetworkParams(network.getNetworkParams().applyEntrywise((theta) -> random.nextDouble()), 1);
+    }
+
+    @Benchmark
+    public double trainToTarget(Epochs epochs) {
+        NeuralNetwork network = countryEvaluation.neuralNetwork;
+        NetworkParams params = network.getNetworkParamsView();
+        LearningAlgorithm learningAlgorithm = create().init(trainingExamples, params.skeleton());
+
+        double cost = network.cost(trainingExamples);
+        int epoch = 0;
+        while (cost > TARGET_COST && epoch < MAX_EPOCHS) {
+            learningAlgorithm.learnStep(network, params);
+
+            if (learningAlgorithm.getStats().isEndOfEpoch()) {
+                epoch = learningAlgorithm.getEpoch();
+                cost = learningAlgorithm.getStats().getEpochLoss();
+            }
+        }
+
+        epochs.epochs += epoch;
+        return cost;
+    }
+
+    private LearningAlgorithm create() {
+        switch (optimizer) {
+            case "gd": return LearningAlgorithm.BatchGradientDescent(0.05, Integer.MAX_VALUE);
+            case "minibatch": return LearningAlgorithm.MiniBatchGradientDescent(0.05, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            case "momentum": return LearningAlgorithm.Momentum(0.05, 0.9, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            case "nesterov": return LearningAlgorithm.Nesterov(0.05, 0.9, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            case "rmsprop": return LearningAlgorithm.RMSProp(0.01, 0.9, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            case "adam": return LearningAlgorithm.Adam(0.01, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            case "adamw": return LearningAlgorithm.AdamW(0.01, 0.9, 0.999, 0.01, BATCH_SIZE, Integer.MAX_VALUE, Networks.SEED);
+            default: throw new IllegalArgumentException(optimizer);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.Precision;
+import neuralnetwork.Predictor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//float64 vs float32 vs int8 inference on the same network; one op = the whole batch
+//int8 is calibrated on a separate sample; float32 accuracy is checked in Float32NetworkTest, int8's by QuantizedNetwork.compare
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrecisionBenchmark {
+    @Param({"float64", "float32", "int8"})
+    public String mode;
+
+    @Param({"128", "512"})
+    public int width;
+
+    @Param({"1", "256"})
+    public int batchSize;
+
+    private Predictor predictor;
+    private double[][] X;
+    private double[] output;
+
+    @Setup
+    public void setup() {
+        NeuralNetwork network = Networks.build(width, 2, "relu");
+        X = Networks.inputs(batchSize, width);
+        switch (mode) {
+            case "float64": predictor = network.compile(Precision.FLOAT64); break;
+            case "float32": predictor = network.compile(Precision.FLOAT32); break;
+            case "int8": predictor = network.quantize(Networks.examples(256, width, width)); break;
+            default: throw new IllegalArgumentException(mode);
+        }
+        output = new double[predictor.getOutputSize()];
+    }
+
+    @Benchmark
+    public double[][] predictBatch() {
+        return predictor.predictBatch(X);
+    }
+
+    @Benchmark
+    public double[] predictEach() {
+        for (double[] X_j : X) {
+            predictor.predict(X_j, output);
+        }
+
+        return output;
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import math.Tensor;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.training.NetworkParams;
+import neuralnetwork.training.TrainingExample;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//parameter arithmetic and one optimizer step
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainingStepBenchmark {
+    @Param({"32", "256"})
+    public int width;
+
+    private NeuralNetwork network;
+    private List<TrainingExample> trainingExamples;
+    private LearningAlgorithm learningAlgorithm;
+    private NetworkParams params, gradient;
+
+    @Setup
+    public void setup() {
+        network = Networks.build(width, 2, "sigmoid");
+        trainingExamples = Networks.examples(64, width, width);
+        params = network.getNetworkParamsView();
+        gradient = params.applyEntrywise((theta) -> theta * 0.001);
+
+        learningAlgorithm = LearningAlgorithm.BatchGradientDescent(0.01, Integer.MAX_VALUE).init(trainingExamples, params.skeleton());
+    }
+
+    @Benchmark
+    public NetworkParams plus() {
+        return params.plus(gradient);
+    }
+
+    @Benchmark
+    public NetworkParams minusScaled() { // the BatchGradientDescent update
+        return params.minus(gradient.scale(0.01));
+    }
+
+    @Benchmark
+    public NetworkParams axpy() { // the in-place update; the +/- pair keeps params from drifting
+        return params.axpy(-0.01, gradient).axpy(0.01, gradient);
+    }
+
+    @Benchmark
+    public Tensor applyEntrywise() {
+        return params.TW.applyEntrywise(Math::abs);
+    }
+
+    @Benchmark
+    public NetworkParams learnStep() { // params is a view of the network, so the step updates it in place
+        return learningAlgorithm.learnStep(network, params);
+    }
+}
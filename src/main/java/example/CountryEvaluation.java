@@ -1,10 +1,14 @@
 package example;
 
-import com.opencsv.CSVReader;
 import example.tool.CountryColumns;
-import misc.GeneralUtils;
+import example.tool.CountryFeatureStore;
+import neuralnetwork.ForwardWorkspace;
 import neuralnetwork.NeuralNetwork;
+import neuralnetwork.PredictionCache;
 import neuralnetwork.activation.Activation;
+import neuralnetwork.io.ColumnStats;
+import neuralnetwork.io.CsvIngestion;
+import neuralnetwork.io.CsvTable;
 import neuralnetwork.loss.Loss;
 import neuralnetwork.training.TrainingExample;
 import neuralnetwork.util.MechIndex;
@@ -13,7 +17,13 @@ import neuralnetwork.util.Operations;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -30,6 +40,10 @@ public class CountryEvaluation {
     public static final int Latitude = 0, Longitude = 1, AffordabilityRatio = 2, GeneralQoL = 3, Safety = 4; //input columns
     public static final double MAX_RATING = 10.0; //max output rating
 
+    public enum OutputFormat {
+        CSV, JSON //JSON is one object per line
+    }
+
     public static final CountryColumns csvCountry = new CountryColumns(
             0,
             3,
@@ -41,43 +55,76 @@ public class CountryEvaluation {
             7
     );
 
-    private final List<String[]> countriesCSVdata;
+    private static final int LatitudeCol = 0, LongitudeCol = 1, PurchasingPowerCol = 2, CostOfLivingCol = 3, QoLCol = 4, SafetyCol = 5; //numeric columns of countries
+    private static final int CodeCol = 0, NameCol = 1; //text columns of countries
+
+    private final CsvTable countries;
+    private final ColumnStats affordabilityRatioStats = new ColumnStats();
+    private final CountryFeatureStore featureStore;
     public final SimpleMatrix latitudeColumn, longitudeColumn, purchasingPowerColumn, costOfLivingColumn, affordabilityRatioColumn, qolColumn, safetyColumn;
     public final NeuralNetwork neuralNetwork;
+    private final PredictionCache predictionCache; //the same countries get asked about again and again
 
     public CountryEvaluation() {
         neuralNetwork = new NeuralNetwork(new int[]{inputSize, 5, outputSize});
+        predictionCache = new PredictionCache(neuralNetwork, 1024);
 
-        countriesCSVdata = allCountriesAttributeData();
+        countries = allCountriesAttributeData();
 
-        latitudeColumn = GeneralUtils.getNumericColumn(csvCountry.LATITUDE, countriesCSVdata, 1);
-        longitudeColumn = GeneralUtils.getNumericColumn(csvCountry.LONGITUDE, countriesCSVdata, 1);
-        purchasingPowerColumn = GeneralUtils.getNumericColumn(csvCountry.PURCHASING_POWER, countriesCSVdata, 1);
-        costOfLivingColumn = GeneralUtils.getNumericColumn(csvCountry.COST_OF_LIVING, countriesCSVdata, 1);
+        latitudeColumn = column(LatitudeCol);
+        longitudeColumn = column(LongitudeCol);
+        purchasingPowerColumn = column(PurchasingPowerCol);
+        costOfLivingColumn = column(CostOfLivingCol);
         affordabilityRatioColumn = purchasingPowerColumn.elementDiv(costOfLivingColumn);
-        qolColumn = GeneralUtils.getNumericColumn(csvCountry.QOL, countriesCSVdata, 1);
-        safetyColumn = GeneralUtils.getNumericColumn(csvCountry.SAFETY, countriesCSVdata, 1);
+        qolColumn = column(QoLCol);
+        safetyColumn = column(SafetyCol);
+
+        for (int i = 0; i < countries.size(); i++) {
+            affordabilityRatioStats.add(affordabilityRatioColumn.get(i));
+        }
+
+        String[] codes = new String[countries.size()], names = new String[countries.size()];
+        double[][] features = new double[countries.size()][];
+        for (int i = 0; i < countries.size(); i++) {
+            codes[i] = countries.getText(CodeCol, i);
+            names[i] = countries.getText(NameCol, i);
+            features[i] = inputData(i);
+        }
+        featureStore = new CountryFeatureStore(codes, names, features);
     }
 
+    public CountryFeatureStore getFeatureStore() { return featureStore; }
+
+    public PredictionCache getPredictionCache() { return predictionCache; }
+
+    //features of a country by code, name or alias in any case; all zeros if it's unknown
     public double[] getInputData(String country) {
         double[] X = new double[inputSize];
+        featureStore.copyFeatures(country, X);
+        return X;
+    }
 
-        int countryID = (country.length() == 2) ? csvCountry.CODE : csvCountry.NAME;
-        for (int i = 0; i < countriesCSVdata.size(); i++) {
-            if (countriesCSVdata.get(i)[countryID].equals(country)) {
-                //set input features with feature scaling
-                X[Latitude] = latitudeColumn.get(i) / latitudeColumn.elementMaxAbs();
-                X[Longitude] = longitudeColumn.get(i) / longitudeColumn.elementMaxAbs();
-                X[AffordabilityRatio] = (purchasingPowerColumn.get(i) == 0.0) ? 0.0 : (affordabilityRatioColumn.get(i) / affordabilityRatioColumn.elementMaxAbs());
-                X[GeneralQoL] = qolColumn.get(i) / qolColumn.elementMaxAbs();
-                X[Safety] = safetyColumn.get(i) / safetyColumn.elementMaxAbs();
-
-                break;
-            }
-        }
+    //input features of row i, with max-abs feature scaling from the cached column stats
+    private double[] inputData(int i) {
+        double[] X = new double[inputSize];
+        X[Latitude] = scale(LatitudeCol, i);
+        X[Longitude] = scale(LongitudeCol, i);
+        X[AffordabilityRatio] = (countries.getNumeric(PurchasingPowerCol, i) == 0.0) ? 0.0
+                : affordabilityRatioStats.scale(affordabilityRatioColumn.get(i), ColumnStats.Scaling.MAX_ABS);
+        X[GeneralQoL] = scale(QoLCol, i);
+        X[Safety] = scale(SafetyCol, i);
 
         return X;
     }
+
+    private double scale(int column, int i) {
+        return countries.getStats(column).scale(countries.getNumeric(column, i), ColumnStats.Scaling.MAX_ABS);
+    }
+
+    private SimpleMatrix column(int c) {
+        return SimpleMatrix.wrap(new DMatrixRMaj(countries.size(), 1, true, Arrays.copyOf(countries.getNumeric(c), countries.size())));
+    }
+
     public void run() {
         Scanner scanner = new Scanner(System.in);
         while (true) {
@@ -100,7 +147,7 @@ public class CountryEvaluation {
                 for (int i = 0; i < X.length; i++) { X[i] = Double.parseDouble(inputs[i]); }
             }
 
-            SimpleMatrix output = neuralNetwork.predict(X);
+            SimpleMatrix output = Operations.colVector(predictionCache.predict(X));
 
             System.out.println("OUTPUT: " + Operations.vectorToString(output) + "\n");
             System.out.println("On a scale of 1-10, " + areaName + " has:\n" +
@@ -112,6 +159,150 @@ public class CountryEvaluation {
         }
     }
 
+    //non-interactive counterpart of run(): every non-empty line of in is a country (code, name or alias) or
+    //'latitude, longitude, ...' features; lines are predicted batchSize at a time and written to out as they finish
+    //a malformed feature line throws IllegalArgumentException with its line number, after the rows before it are written
+    //returns the throughput in rows per second
+    public double predictAll(Reader in, Writer out, OutputFormat format, int batchSize) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        BufferedReader reader = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+        Writer writer = (out instanceof BufferedWriter) ? out : new BufferedWriter(out, 1 << 16);
+        ForwardWorkspace workspace = new ForwardWorkspace(neuralNetwork, batchSize);
+        DMatrixRMaj X = new DMatrixRMaj(inputSize, batchSize);
+        double[][] batch = new double[batchSize][inputSize];
+        String[] labels = new String[batchSize];
+
+        if (format == OutputFormat.CSV) {
+            writer.write("input,quality_of_life,food,people,fun\n");
+        }
+
+        long start = System.nanoTime(), rows = 0, lineNumber = 0;
+        int n = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            labels[n] = line;
+            try {
+                parseInput(line, lineNumber, batch[n]);
+            } catch (IllegalArgumentException e) {
+                if (n > 0) {
+                    writePredictions(batch, labels, n, X, workspace, writer, format);
+                }
+                writer.flush();
+                throw e;
+            }
+            if (++n == batchSize) {
+                writePredictions(batch, labels, n, X, workspace, writer, format);
+                rows += n;
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            writePredictions(batch, labels, n, X, workspace, writer, format);
+            rows += n;
+        }
+        writer.flush();
+
+        return rows / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private void parseInput(String line, long lineNumber, double[] X) {
+        if (Character.isAlphabetic(line.charAt(0))) {
+            if (!featureStore.copyFeatures(line, X)) {
+                Arrays.fill(X, 0.0); //same as getInputData
+            }
+            return;
+        }
+
+        int from = 0;
+        for (int i = 0; i < X.length; i++) {
+            if (from > line.length()) {
+                throw new IllegalArgumentException("line " + lineNumber + ": expected " + X.length + " comma-separated features, got " + i);
+            }
+
+            int to = line.indexOf(',', from);
+            if (to < 0) {
+                to = line.length();
+            }
+            String field = line.substring(from, to).trim();
+            try {
+                X[i] = Double.parseDouble(field);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("line " + lineNumber + ", feature " + (i + 1) + ": not a number: \"" + field + "\"", e);
+            }
+            from = to + 1;
+        }
+        if (from <= line.length()) {
+            throw new IllegalArgumentException("line " + lineNumber + ": expected " + X.length + " comma-separated features, got more");
+        }
+    }
+
+    private void writePredictions(double[][] batch, String[] labels, int n, DMatrixRMaj X, ForwardWorkspace workspace, Writer writer, OutputFormat format) throws IOException {
+        X.reshape(inputSize, n, false);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < inputSize; i++) {
+                X.data[i * n + j] = batch[j][i];
+            }
+        }
+
+        DMatrixRMaj output = neuralNetwork.predictBatch(X, workspace); //(outputSize x n)
+        StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < n; j++) {
+            sb.setLength(0);
+            if (format == OutputFormat.JSON) {
+                sb.append("{\"input\":");
+                jsonString(labels[j], sb);
+                sb.append(",\"qualityOfLife\":").append(output.data[j] * MAX_RATING)
+                  .append(",\"food\":").append(output.data[n + j] * MAX_RATING)
+                  .append(",\"people\":").append(output.data[2 * n + j] * MAX_RATING)
+                  .append(",\"fun\":").append(output.data[3 * n + j] * MAX_RATING)
+                  .append("}\n");
+            } else {
+                csvField(labels[j], sb);
+                for (int i = 0; i < outputSize; i++) {
+                    sb.append(',').append(output.data[i * n + j] * MAX_RATING);
+                }
+                sb.append('\n');
+            }
+            writer.append(sb);
+        }
+    }
+
+    private static void csvField(String text, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append(c);
+            if (c == '"') {
+                sb.append('"');
+            }
+        }
+        sb.append('"');
+    }
+
+    private static void jsonString(String text, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
     public List<TrainingExample> sampleData() {
         return Arrays.asList(
                 new TrainingExample(
@@ -151,15 +342,7 @@ public class CountryEvaluation {
 
     public double[] randomInputData() {
         double[] X = new double[inputSize];
-        int i = (int)(Math.random() * countriesCSVdata.size());
-
-        //set input features with feature scaling
-        X[Latitude] = latitudeColumn.get(i) / latitudeColumn.elementMaxAbs();
-        X[Longitude] = longitudeColumn.get(i) / longitudeColumn.elementMaxAbs();
-        X[AffordabilityRatio] = (purchasingPowerColumn.get(i) == 0.0) ? 0.0 : (affordabilityRatioColumn.get(i) / affordabilityRatioColumn.elementMaxAbs());
-        X[GeneralQoL] = qolColumn.get(i) / qolColumn.elementMaxAbs();
-        X[Safety] = safetyColumn.get(i) / safetyColumn.elementMaxAbs();
-
+        featureStore.copyFeatures((int)(Math.random() * featureStore.size()), X);
         return X;
     }
 
@@ -176,17 +359,14 @@ public class CountryEvaluation {
         return trainingExamples;
     }
 
-    private static List<String[]> allCountriesAttributeData() {
-        try {
-            FileReader fileReader = new FileReader("res/data/country_data.csv");
-            CSVReader csvReader = new CSVReader(fileReader);
-
-            return csvReader.readAll();
-        } catch (Exception e) {
-            e.printStackTrace();
+    private static CsvTable allCountriesAttributeData() {
+        try (Reader reader = new BufferedReader(new FileReader("res/data/country_data.csv"))) {
+            return CsvIngestion.read(reader,
+                    new int[]{csvCountry.LATITUDE, csvCountry.LONGITUDE, csvCountry.PURCHASING_POWER, csvCountry.COST_OF_LIVING, csvCountry.QOL, csvCountry.SAFETY},
+                    new int[]{csvCountry.CODE, csvCountry.NAME}, CsvIngestion.MissingValues.REJECT);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        throw new RuntimeException();
     }
 
     private static SimpleMatrix vec(double... data) { //column vector
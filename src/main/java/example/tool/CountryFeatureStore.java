@@ -0,0 +1,101 @@
+package example.tool;
+
+import java.util.Map;
+
+//normalized input features of every country, computed once at load time and found by code, name or CountryCodes alias
+//keys are case-insensitive and looked up in an open-addressing table that hashes and compares characters in place,
+//so a lookup is O(1) and allocates nothing
+public class CountryFeatureStore {
+    private final String[] codes, names;
+    private final double[] features; //row r is features[r * featureCount, (r + 1) * featureCount)
+    private final int featureCount;
+
+    private final String[] keys; //open addressing with linear probing, null = empty slot
+    private final int[] rows;
+    private final int mask;
+
+    //features[r] belongs to the country with codes[r] and names[r]
+    public CountryFeatureStore(String[] codes, String[] names, double[][] features) {
+        int size = codes.length;
+        this.codes = codes.clone();
+        this.names = names.clone();
+        featureCount = (size > 0) ? features[0].length : 0;
+        this.features = new double[size * featureCount];
+        for (int r = 0; r < size; r++) {
+            System.arraycopy(features[r], 0, this.features, r * featureCount, featureCount);
+        }
+
+        Map<String, String> aliases = new CountryCodes().map; //name -> code
+        int capacity = Integer.highestOneBit(Math.max(4, 2 * (2 * size + aliases.size())) - 1) << 1; //load factor <= 1/2
+        keys = new String[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+
+        for (int r = 0; r < size; r++) {
+            put(codes[r], r);
+            put(names[r], r);
+        }
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            int r = indexOf(alias.getValue());
+            if (r >= 0) {
+                put(alias.getKey(), r); //never replaces a name from the data
+            }
+        }
+    }
+
+    public int size() { return codes.length; }
+
+    public int getFeatureCount() { return featureCount; }
+
+    public String getCode(int row) { return codes[row]; }
+
+    public String getName(int row) { return names[row]; }
+
+    //row of the country with this code, name or alias (any case), or -1
+    public int indexOf(String key) {
+        for (int slot = hash(key) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equalsIgnoreCase(key)) {
+                return rows[slot];
+            }
+        }
+
+        return -1;
+    }
+
+    //copies the country's normalized features into out; false (and out untouched) if the key is unknown
+    public boolean copyFeatures(String key, double[] out) {
+        int row = indexOf(key);
+        if (row < 0) {
+            return false;
+        }
+
+        copyFeatures(row, out);
+        return true;
+    }
+
+    public void copyFeatures(int row, double[] out) {
+        System.arraycopy(features, row * featureCount, out, 0, featureCount);
+    }
+
+    private void put(String key, int row) {
+        int slot = hash(key) & mask;
+        for (; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot].equalsIgnoreCase(key)) {
+                return; //first one wins
+            }
+        }
+
+        keys[slot] = key;
+        rows[slot] = row;
+    }
+
+    //case-insensitive, consistent with String.equalsIgnoreCase
+    private static int hash(String key) {
+        int h = 0;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+        }
+
+        return h ^ (h >>> 16);
+    }
+}
@@ -3,7 +3,9 @@ package main;
 import example.CountryEvaluation;
 import neuralnetwork.NeuralNetwork;
 import neuralnetwork.activation.Activation;
+import neuralnetwork.io.Checkpoint;
 import neuralnetwork.loss.Loss;
+import neuralnetwork.serving.InferenceServer;
 import neuralnetwork.training.LearningAlgorithm;
 import neuralnetwork.training.TrainingExample;
 import neuralnetwork.util.MechIndex;
@@ -12,21 +14,50 @@ import neuralnetwork.util.Operations;
 import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 
 public class Main {
 
-    public static void main(String[] args) {
-        worldPrediction();
+    //[checkpoint] [--batch <input file or -> [csv|json] | --serve <port>]
+    public static void main(String[] args) throws IOException {
+        int batch = Arrays.asList(args).indexOf("--batch"), serve = Arrays.asList(args).indexOf("--serve");
+        Path checkpoint = (args.length > 0 && batch != 0 && serve != 0) ? Paths.get(args[0]) : null;
+        int servePort = (serve >= 0) ? Integer.parseInt(args[serve + 1]) : -1;
+        String batchInput = (batch >= 0) ? ((batch + 1 < args.length) ? args[batch + 1] : "-") : null;
+        CountryEvaluation.OutputFormat format = (batch >= 0 && batch + 2 < args.length)
+                ? CountryEvaluation.OutputFormat.valueOf(args[batch + 2].toUpperCase(Locale.ROOT)) : CountryEvaluation.OutputFormat.CSV;
+
+        worldPrediction(checkpoint, batchInput, format, servePort);
     }
-    private static void worldPrediction() {
+
+    //with a checkpoint path: serve from it if it exists, otherwise train and save to it
+    //with a batch input: predict every line of it (stdin for -) to stdout instead of prompting
+    //with a serve port (0 = any free one): answer HTTP requests on localhost instead
+    private static void worldPrediction(Path checkpoint, String batchInput, CountryEvaluation.OutputFormat format, int servePort) throws IOException {
         /**
          * Inputs: [latitude, longitude, purchasing power / cost of living, general quality of life, safety]
          * Outputs: [subjective quality of life, food, people and their hospitality, fun]
          */
         CountryEvaluation countryEvaluation = new CountryEvaluation();
 
+        if (checkpoint != null && Files.exists(checkpoint)) {
+            Checkpoint.loadInto(checkpoint, countryEvaluation.neuralNetwork);
+            serve(countryEvaluation, batchInput, format, servePort);
+            return;
+        }
+
         countryEvaluation.neuralNetwork.setDenseMechanics(
                 new MechIndex(1, new Mechanics(Activation.Sigmoid, Loss.BinaryCrossentropy)),
                 new MechIndex(2, new Mechanics(Activation.Sigmoid, Loss.BinaryCrossentropy))
@@ -39,7 +70,30 @@ public class Main {
         //trainingExamples.addAll(countryEvaluation.randomizedTrainingData(75, 0.0));
 
         countryEvaluation.neuralNetwork.train(trainingExamples, learningAlgorithm);
-        countryEvaluation.run();
+        if (checkpoint != null) {
+            Checkpoint.save(countryEvaluation.neuralNetwork, checkpoint);
+        }
+
+        serve(countryEvaluation, batchInput, format, servePort);
+    }
+
+    private static void serve(CountryEvaluation countryEvaluation, String batchInput, CountryEvaluation.OutputFormat format, int servePort) throws IOException {
+        if (servePort >= 0) {
+            InferenceServer server = new InferenceServer(countryEvaluation.neuralNetwork, servePort, 64, 500);
+            System.err.println("serving on http://127.0.0.1:" + server.getPort() + "/predict (metrics at /metrics)");
+            return; //the server's threads keep running
+        }
+        if (batchInput == null) {
+            countryEvaluation.run();
+            return;
+        }
+
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        try (Reader in = batchInput.equals("-") ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                                                : Files.newBufferedReader(Paths.get(batchInput))) {
+            double rowsPerSecond = countryEvaluation.predictAll(in, out, format, 256);
+            System.err.printf("%.0f rows/s%n", rowsPerSecond); //stdout only carries the predictions
+        }
     }
 
     private static SimpleMatrix vec(double... data) { //column vector
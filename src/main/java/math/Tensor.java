@@ -1,6 +1,7 @@
 package math;
 
 import neuralnetwork.util.Operations;
+import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.simple.SimpleMatrix;
 
 import java.util.List;
@@ -194,6 +195,69 @@ public class Tensor { //very basic tensor
         return new Tensor(mats);
     }
 
+    //in-place variants: write into this tensor's matrices instead of allocating new ones
+
+    public Tensor addInPlace(Tensor other) {
+        checkLength(other);
+        for (int i = 0; i < matrices.length; ++i) {
+            CommonOps_DDRM.addEquals(matrices[i].getDDRM(), other.matrices[i].getDDRM());
+        }
+
+        return this;
+    }
+
+    public Tensor axpy(double alpha, Tensor x) { // this += alpha * x in one pass
+        checkLength(x);
+        for (int i = 0; i < matrices.length; ++i) {
+            CommonOps_DDRM.addEquals(matrices[i].getDDRM(), alpha, x.matrices[i].getDDRM());
+        }
+
+        return this;
+    }
+
+    public Tensor scaleInPlace(double scalar) {
+        for (SimpleMatrix matrix : matrices) {
+            CommonOps_DDRM.scale(scalar, matrix.getDDRM());
+        }
+
+        return this;
+    }
+
+    public Tensor divideInPlace(double val) {
+        for (SimpleMatrix matrix : matrices) {
+            CommonOps_DDRM.divide(matrix.getDDRM(), val);
+        }
+
+        return this;
+    }
+
+    public Tensor zeroInPlace() {
+        for (SimpleMatrix matrix : matrices) {
+            matrix.zero();
+        }
+
+        return this;
+    }
+
+    public Tensor setTo(Tensor other) { //copies other's values into this tensor's matrices
+        checkLength(other);
+        for (int i = 0; i < matrices.length; ++i) {
+            matrices[i].getDDRM().setTo(other.matrices[i].getDDRM());
+        }
+
+        return this;
+    }
+
+    public double[] data(int i) { //row-major backing array of matrix i
+        return matrices[i].getDDRM().data;
+    }
+
+    private void checkLength(Tensor other) {
+        if (other.matrices.length != matrices.length) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
     public Tensor defineMatrixShape(int rows, int cols) {
         SimpleMatrix[] mats = new SimpleMatrix[matrices.length];
         for (int i = 0; i < mats.length; ++i) {
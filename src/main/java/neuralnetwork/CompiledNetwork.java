@@ -0,0 +1,79 @@
+package neuralnetwork;
+
+import org.ejml.data.DMatrixRMaj;
+
+//immutable inference snapshot of a NeuralNetwork: later training doesn't affect it and any number of threads can share it
+//each thread gets its own scratch buffers
+public final class CompiledNetwork implements Predictor {
+    private final Layer[] layers; //private deep copies, only ever read after construction
+    private final int inputSize, outputSize;
+    private final ThreadLocal<ForwardWorkspace> workspaces;
+
+    CompiledNetwork(NeuralNetwork network) {
+        int numLayers = network.getNumLayers();
+        layers = new Layer[numLayers];
+        for (int l = 0; l < numLayers; l++) {
+            layers[l] = network.getLayer(l).copy();
+        }
+
+        inputSize = layers[0].size();
+        outputSize = layers[numLayers - 1].size();
+        workspaces = ThreadLocal.withInitial(this::createWorkspace);
+    }
+
+    @Override
+    public int getInputSize() { return inputSize; }
+
+    @Override
+    public int getOutputSize() { return outputSize; }
+
+    public ForwardWorkspace createWorkspace() {
+        return new ForwardWorkspace(layers, 1);
+    }
+
+    @Override
+    public double[] predict(double[] X) {
+        double[] output = new double[outputSize];
+        predict(X, output);
+
+        return output;
+    }
+
+    @Override
+    public void predict(double[] X, double[] output) { //allocation-free once the calling thread's workspace exists
+        ForwardWorkspace workspace = workspaces.get();
+        workspace.setInput(X);
+
+        DMatrixRMaj a = NeuralNetwork.forward(layers, workspace);
+        System.arraycopy(a.data, 0, output, 0, outputSize);
+    }
+
+    @Override
+    public double[][] predictBatch(double[][] X) { //row j of the result is the output for X[j]
+        ForwardWorkspace workspace = workspaces.get();
+        workspace.setInputs(X);
+
+        DMatrixRMaj a = NeuralNetwork.forward(layers, workspace);
+        int n = X.length;
+        double[][] outputs = new double[n][outputSize];
+        for (int i = 0; i < outputSize; i++) {
+            for (int j = 0; j < n; j++) {
+                outputs[j][i] = a.data[i * n + j];
+            }
+        }
+
+        return outputs;
+    }
+
+    //for callers that manage their own workspaces (e.g. pooled); returns the workspace's output buffer
+    public DMatrixRMaj predict(double[] X, ForwardWorkspace workspace) {
+        workspace.setInput(X);
+        return NeuralNetwork.forward(layers, workspace);
+    }
+
+    //X is (input size x N) with one sample per column; returns the workspace's (output size x N) buffer
+    public DMatrixRMaj predictBatch(DMatrixRMaj X, ForwardWorkspace workspace) {
+        workspace.setInputs(X);
+        return NeuralNetwork.forward(layers, workspace);
+    }
+}
@@ -0,0 +1,239 @@
+package neuralnetwork;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.data.FMatrixRMaj;
+import neuralnetwork.activation.Activation;
+import org.ejml.dense.row.CommonOps_FDRM;
+
+import java.util.Arrays;
+
+//single-precision inference snapshot of a NeuralNetwork (see NeuralNetwork.compile(Precision))
+//W and b are rounded to float once, halving the memory per weight; the built-in activations run on the float buffers,
+//anything else (custom activations, softmax sharing a layer) goes through the layer's double kernels on a widened copy of z
+//throughput matches float64 at the benchmarked sizes, EJML's float products being no faster: the gain is memory, not speed
+//shareable between threads like CompiledNetwork, each thread gets its own buffers
+public final class Float32Network implements Predictor {
+    private final FMatrixRMaj[] W, b;
+    private final Layer[] mechanics; //per-neuron mechanics of each layer, without parameters; also holds the run index
+    private final boolean[] widened; //layers with an activation that has no float kernel below
+    private final int inputSize, outputSize;
+    private final ThreadLocal<Workspace> workspaces;
+
+    Float32Network(NeuralNetwork network) {
+        int numLayers = network.getNumLayers();
+        W = new FMatrixRMaj[numLayers];
+        b = new FMatrixRMaj[numLayers];
+        mechanics = new Layer[numLayers];
+        widened = new boolean[numLayers];
+
+        for (int l = 0; l < numLayers; l++) {
+            Layer layer = network.getLayer(l);
+            W[l] = toFloat(layer.getWeights().getDDRM());
+            b[l] = toFloat(layer.getBiases().getDDRM());
+            mechanics[l] = layer.mechanicsOnly();
+            widened[l] = needsWidening(mechanics[l].runActivations());
+        }
+
+        inputSize = mechanics[0].size();
+        outputSize = mechanics[numLayers - 1].size();
+        workspaces = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    @Override
+    public int getInputSize() { return inputSize; }
+
+    @Override
+    public int getOutputSize() { return outputSize; }
+
+    @Override
+    public double[] predict(double[] X) {
+        double[] output = new double[outputSize];
+        predict(X, output);
+
+        return output;
+    }
+
+    @Override
+    public void predict(double[] X, double[] output) {
+        checkInputSize(X.length);
+        Workspace workspace = workspaces.get();
+        workspace.reshape(1);
+        float[] a = workspace.A[0].data;
+        for (int i = 0; i < inputSize; i++) {
+            a[i] = (float) X[i];
+        }
+
+        float[] out = forward(workspace).data;
+        for (int i = 0; i < outputSize; i++) {
+            output[i] = out[i];
+        }
+    }
+
+    public void predict(float[] X, float[] output) {
+        checkInputSize(X.length);
+        Workspace workspace = workspaces.get();
+        workspace.reshape(1);
+        System.arraycopy(X, 0, workspace.A[0].data, 0, inputSize);
+
+        System.arraycopy(forward(workspace).data, 0, output, 0, outputSize);
+    }
+
+    @Override
+    public double[][] predictBatch(double[][] X) {
+        Workspace workspace = workspaces.get();
+        int n = X.length;
+        for (double[] X_j : X) {
+            checkInputSize(X_j.length);
+        }
+        workspace.reshape(n);
+
+        float[] a = workspace.A[0].data;
+        for (int j = 0; j < n; j++) {
+            double[] X_j = X[j];
+            for (int i = 0; i < inputSize; i++) {
+                a[i * n + j] = (float) X_j[i];
+            }
+        }
+
+        float[] out = forward(workspace).data;
+        double[][] outputs = new double[n][outputSize];
+        for (int i = 0; i < outputSize; i++) {
+            for (int j = 0; j < n; j++) {
+                outputs[j][i] = out[i * n + j];
+            }
+        }
+
+        return outputs;
+    }
+
+    private void checkInputSize(int features) { //a short input would silently reuse the previous call's values
+        if (features != inputSize) {
+            throw new IllegalArgumentException("expected " + inputSize + " features, got " + features);
+        }
+    }
+
+    private FMatrixRMaj forward(Workspace workspace) {
+        int n = workspace.batchSize;
+        for (int l = 1; l < W.length; l++) {
+            FMatrixRMaj z = workspace.A[l];
+            for (int i = 0, size = b[l].numRows; i < size; i++) {
+                Arrays.fill(z.data, i * n, (i + 1) * n, b[l].data[i]); // Z = b
+            }
+            CommonOps_FDRM.multAdd(W[l], workspace.A[l - 1], z);    // Z += WA
+
+            if (!widened[l]) {
+                activate(l, z);
+                continue;
+            }
+
+            DMatrixRMaj wide = workspace.wide;
+            wide.reshape(z.numRows, n, false);
+            for (int k = 0, length = z.getNumElements(); k < length; k++) {
+                wide.data[k] = z.data[k];
+            }
+
+            mechanics[l].activate(wide, wide, workspace.zs[l]);
+            for (int k = 0, length = z.getNumElements(); k < length; k++) {
+                z.data[k] = (float) wide.data[k];
+            }
+        }
+
+        return workspace.A[W.length - 1];
+    }
+
+    private static boolean needsWidening(Activation[] runActivations) {
+        for (Activation activation : runActivations) {
+            boolean elementwise = activation == Activation.Linear || activation == Activation.ReLU ||
+                                  activation == Activation.Sigmoid || activation == Activation.tanh;
+            boolean wholeLayerSoftmax = activation == Activation.Softmax && runActivations.length == 1;
+            if (!(elementwise || wholeLayerSoftmax)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    //z (size x n, row-major) -> activations in place; rows of a run are contiguous, as in Layer.applyColumnwise
+    private void activate(int l, FMatrixRMaj z) {
+        int n = z.numCols;
+        float[] data = z.data;
+        Activation[] runActivations = mechanics[l].runActivations();
+        int[] runStarts = mechanics[l].runStarts();
+        for (int r = 0; r < runActivations.length; r++) {
+            Activation activation = runActivations[r];
+            int off = runStarts[r] * n, end = runStarts[r + 1] * n;
+
+            if (activation == Activation.ReLU) {
+                for (int k = off; k < end; k++) {
+                    data[k] = Math.max(0f, data[k]);
+                }
+            } else if (activation == Activation.Sigmoid) {
+                for (int k = off; k < end; k++) {
+                    data[k] = (float) (1.0 / (1.0 + Math.exp(-data[k])));
+                }
+            } else if (activation == Activation.tanh) {
+                for (int k = off; k < end; k++) {
+                    data[k] = (float) Math.tanh(data[k]);
+                }
+            } else if (activation == Activation.Softmax) {
+                softmaxColumns(data, z.numRows, n);
+            }
+        }
+    }
+
+    //each column is one sample's whole layer
+    private static void softmaxColumns(float[] data, int size, int n) {
+        for (int j = 0; j < n; j++) {
+            float max = Float.NEGATIVE_INFINITY;
+            for (int k = j, end = size * n; k < end; k += n) {
+                max = Math.max(max, data[k]);
+            }
+
+            double sum = 0.0;
+            for (int k = j, end = size * n; k < end; k += n) {
+                data[k] = (float) Math.exp(data[k] - max); //shifted by max for numerical stability
+                sum += data[k];
+            }
+
+            for (int k = j, end = size * n; k < end; k += n) {
+                data[k] = (float) (data[k] / sum);
+            }
+        }
+    }
+
+    private static FMatrixRMaj toFloat(DMatrixRMaj matrix) {
+        FMatrixRMaj single = new FMatrixRMaj(matrix.numRows, matrix.numCols);
+        for (int k = 0, length = matrix.getNumElements(); k < length; k++) {
+            single.data[k] = (float) matrix.data[k];
+        }
+
+        return single;
+    }
+
+    //per-thread activations (layer size x batch size), plus the double scratch the activation kernels run on
+    private final class Workspace {
+        final FMatrixRMaj[] A = new FMatrixRMaj[W.length];
+        final DMatrixRMaj wide = new DMatrixRMaj(1, 1);
+        final double[][] zs = new double[W.length][];
+        int batchSize = 1;
+
+        Workspace() {
+            for (int l = 0; l < A.length; l++) {
+                A[l] = new FMatrixRMaj(mechanics[l].size(), 1);
+                zs[l] = new double[2 * mechanics[l].size()];
+            }
+        }
+
+        void reshape(int batchSize) {
+            if (batchSize == this.batchSize) {
+                return;
+            }
+
+            for (FMatrixRMaj a : A) {
+                a.reshape(a.numRows, batchSize, false);
+            }
+            this.batchSize = batchSize;
+        }
+    }
+}
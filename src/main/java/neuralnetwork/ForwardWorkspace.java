@@ -0,0 +1,111 @@
+package neuralnetwork;
+
+import math.Tensor;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.simple.SimpleMatrix;
+
+//per-layer z and activation buffers sized once from the network's shape so predictions don't allocate
+//each buffer is (layer size x batch size): column j holds sample j
+//not thread-safe: use one workspace per thread
+public class ForwardWorkspace {
+    final DMatrixRMaj[] Z, A;
+    final double[][] zs; //per-layer column scratch for multi-input activations like Softmax
+    private int batchSize;
+
+    public ForwardWorkspace(NeuralNetwork network) {
+        this(network.getLayers(), 1);
+    }
+
+    public ForwardWorkspace(NeuralNetwork network, int batchSize) {
+        this(network.getLayers(), batchSize);
+    }
+
+    ForwardWorkspace(Layer[] layers, int batchSize) {
+        int numLayers = layers.length;
+        Z = new DMatrixRMaj[numLayers];
+        A = new DMatrixRMaj[numLayers];
+        zs = new double[numLayers][];
+
+        for (int l = 0; l < numLayers; l++) {
+            int size = layers[l].size();
+            A[l] = new DMatrixRMaj(size, batchSize);
+            Z[l] = (l == 0) ? A[l] : new DMatrixRMaj(size, batchSize); //input layer: z = a = X
+            zs[l] = new double[2 * size];
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    public int getNumLayers() { return A.length; }
+
+    public int getBatchSize() { return batchSize; }
+
+    //only allocates when growing past the largest batch size seen so far
+    public void reshape(int batchSize) {
+        if (batchSize == this.batchSize) {
+            return;
+        }
+
+        for (int l = 0; l < A.length; l++) {
+            A[l].reshape(A[l].numRows, batchSize, false);
+            if (Z[l] != A[l]) {
+                Z[l].reshape(Z[l].numRows, batchSize, false);
+            }
+        }
+
+        this.batchSize = batchSize;
+    }
+
+    void setInput(double[] X) {
+        checkInputSize(X.length);
+        reshape(1);
+        System.arraycopy(X, 0, A[0].data, 0, X.length);
+    }
+
+    void setInputs(double[][] X) { //X[j] is sample j
+        reshape(X.length);
+
+        double[] a = A[0].data;
+        int n = X.length;
+        for (int j = 0; j < n; j++) {
+            double[] X_j = X[j];
+            checkInputSize(X_j.length);
+            for (int i = 0; i < X_j.length; i++) {
+                a[i * n + j] = X_j[i];
+            }
+        }
+    }
+
+    void setInputs(DMatrixRMaj X) { //column j is sample j
+        checkInputSize(X.numRows);
+        reshape(X.numCols);
+        System.arraycopy(X.data, 0, A[0].data, 0, X.getNumElements());
+    }
+
+    private void checkInputSize(int features) { //a short input would silently reuse the previous call's values
+        if (features != A[0].numRows) {
+            throw new IllegalArgumentException("expected " + A[0].numRows + " features, got " + features);
+        }
+    }
+
+    public DMatrixRMaj getZ(int l) {
+        return Z[l];
+    }
+
+    public DMatrixRMaj getActivations(int l) {
+        return A[l];
+    }
+
+    public DMatrixRMaj getOutput() {
+        return A[A.length - 1];
+    }
+
+    public Tensor toTensor() { //wraps the activation buffers without copying
+        Tensor allActivations = new Tensor(A.length);
+        for (int l = 0; l < A.length; l++) {
+            allActivations.set(l, SimpleMatrix.wrap(A[l]));
+        }
+
+        return allActivations;
+    }
+}
@@ -4,15 +4,24 @@ import neuralnetwork.activation.Activation;
 import neuralnetwork.loss.Loss;
 import neuralnetwork.util.MechIndex;
 import neuralnetwork.util.Mechanics;
-import neuralnetwork.util.Operations;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
 import org.ejml.simple.SimpleMatrix;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Layer {
-    private final List<Neuron> neurons;
+    private final DMatrixRMaj W, b; //contiguous row-major storage: W is size x prevLayerSize, b is size x 1
+    private final SimpleMatrix weights, biases; //the views handed out by getWeights and getBiases, built once
+    private final AtomicLong modCount = new AtomicLong(); //bumped once per setter call below (setParams too); writes through the views aren't seen
+    private final List<Neuron> neurons; //views over rows of W and b
+    private Activation[] runActivations; //runs of consecutive neurons sharing an activation: run r is [runStarts[r], runStarts[r + 1])
+    private int[] runStarts;
+    private boolean softmaxCrossentropy; //every neuron is Softmax + CategoricalCrossentropy; kept with the runs
     private Mechanics mechanics; //default activation and loss functions; can be overrided by neurons individually
     private final int prevLayerSize;
 
@@ -23,22 +32,23 @@ public class Layer {
     public Layer(int size, Mechanics mechanics, int prevLayerSize) {
         this.mechanics = mechanics;
         this.prevLayerSize = prevLayerSize;
-        neurons = constructNeurons(size, mechanics);
-        initializeWeightsAndBiases();
+        W = new DMatrixRMaj(size, prevLayerSize); //weights and biases start at 0
+        b = new DMatrixRMaj(size, 1);
+        weights = SimpleMatrix.wrap(W);
+        biases = SimpleMatrix.wrap(b);
+        neurons = rowNeurons(size, mechanics);
+        indexRuns();
     }
 
     public Layer(int size, Mechanics[] mechanics, int prevLayerSize) {
-        neurons = constructNeurons(size, mechanics);
         this.mechanics = new Mechanics(Activation.Linear, Loss.None);
         this.prevLayerSize = prevLayerSize;
-        initializeWeightsAndBiases();
-    }
-
-    private void initializeWeightsAndBiases() {
-        for (Neuron neuron : neurons) {
-            double[] data = Operations.fill(0.0, prevLayerSize);
-            neuron.initWandB(Operations.rowVector(data), 0.0);
-        }
+        W = new DMatrixRMaj(size, prevLayerSize);
+        b = new DMatrixRMaj(size, 1);
+        weights = SimpleMatrix.wrap(W);
+        biases = SimpleMatrix.wrap(b);
+        neurons = rowNeurons(size, mechanics);
+        indexRuns();
     }
 
     public int size() {
@@ -50,6 +60,8 @@ public class Layer {
             neurons.get(mechI.i).mechanics = mechI.mechanics;
         }
 
+        indexRuns();
+        modCount.incrementAndGet();
         return this;
     }
 
@@ -59,6 +71,8 @@ public class Layer {
         }
 
         mechanics = mechs;
+        indexRuns();
+        modCount.incrementAndGet();
     }
 
     public List<Neuron> getNeurons() {
@@ -82,49 +96,61 @@ public class Layer {
         return mechs;
     }
 
-    public SimpleMatrix getWeights() { // weight matrix W
-        double[][] W = new double[neurons.size()][prevLayerSize]; //cols = prevLayerSize
-
-        for (int i = 0; i < W.length; i++) {
-            for (int j = 0; j < W[i].length; j++) {
-                W[i][j] = neurons.get(i).weights.get(j); //weights is a vector so it's ok
-            }
-        }
+    public SimpleMatrix getWeights() { // weight matrix W, zero-copy view of the layer's storage
+        return weights;
+    }
 
-        return Operations.matrix(W);
+    public SimpleMatrix getBiases() { // zero-copy view of the layer's storage
+        return biases;
     }
 
-    public SimpleMatrix getBiases() {
-        double[] b = new double[neurons.size()];
-        for (int i = 0; i < b.length; i++) {
-            b[i] = neurons.get(i).bias;
-        }
+    //changes whenever a setter changes W, b or the mechanics, so anything derived from the layer knows to rebuild
+    public long getModCount() { return modCount.get(); }
 
-        return Operations.colVector(b);
+    //for writes that went through getWeights, getBiases or the neurons
+    public void markModified() {
+        modCount.incrementAndGet();
     }
 
     public void setBiases(double[] biases) {
-        for (int i = 0; i < biases.length; i++) {
-            neurons.get(i).bias = biases[i];
+        if (biases.length != b.numRows) {
+            throw new IllegalArgumentException("expected " + b.numRows + " biases, got " + biases.length);
         }
+
+        System.arraycopy(biases, 0, b.data, 0, biases.length);
+        modCount.incrementAndGet();
     }
 
     public void setWeights(SimpleMatrix W) {
-        for (int i = 0, rows = W.numRows(); i < rows; i++) {
-            neurons.get(i).weights = W.extractVector(true, i);
+        checkShape("W", W, this.W);
+        System.arraycopy(W.getDDRM().data, 0, this.W.data, 0, this.W.getNumElements());
+        modCount.incrementAndGet();
+    }
+
+    //copies W and b straight into this layer's storage
+    public void setParams(SimpleMatrix W, SimpleMatrix b) {
+        checkShape("W", W, this.W);
+        checkShape("b", b, this.b);
+        System.arraycopy(W.getDDRM().data, 0, this.W.data, 0, this.W.getNumElements());
+        System.arraycopy(b.getDDRM().data, 0, this.b.data, 0, this.b.getNumElements());
+        modCount.incrementAndGet();
+    }
+
+    private static void checkShape(String name, SimpleMatrix source, DMatrixRMaj target) {
+        if (source.numRows() != target.numRows || source.numCols() != target.numCols) {
+            throw new IllegalArgumentException(name + " is " + target.numRows + "x" + target.numCols + ", got " +
+                                               source.numRows() + "x" + source.numCols());
         }
     }
 
     public void zeroWeights() {
-        for (Neuron neuron : neurons) {
-            neuron.weights.zero();
-        }
+        W.zero();
+        modCount.incrementAndGet();
     }
 
     public void zeroBiases() {
-        for (Neuron neuron : neurons) {
-            neuron.bias = 0.0;
-        }
+        b.zero();
+        modCount.incrementAndGet();
     }
 
     public SimpleMatrix Z(SimpleMatrix prevActivations) {
@@ -133,10 +159,10 @@ public class Layer {
         // b is biases column vector
         // z is column vector
 
-        SimpleMatrix W = getWeights();
-        SimpleMatrix b = getBiases();
+        DMatrixRMaj z = new DMatrixRMaj(size(), prevActivations.numCols());
+        Z(prevActivations.getDDRM(), z);
 
-        return W.mult(prevActivations).plus(b);
+        return SimpleMatrix.wrap(z);
     }
 
     public SimpleMatrix activations(SimpleMatrix prevActivations) { //column vector of activations
@@ -145,33 +171,164 @@ public class Layer {
         // b is biases column vector
         // a' is new activations column vector
 
-        SimpleMatrix W = getWeights();
-        SimpleMatrix b = getBiases();
+        DMatrixRMaj a = new DMatrixRMaj(size(), prevActivations.numCols());
+        forward(prevActivations.getDDRM(), a, a, new double[2 * size()]);
+
+        return SimpleMatrix.wrap(a);
+    }
 
-        SimpleMatrix a = W.mult(prevActivations).plus(b); // z
+    //activations with respect to respective z
+    public SimpleMatrix activationsPrime(SimpleMatrix prevActivations) {
+        DMatrixRMaj a = new DMatrixRMaj(size(), prevActivations.numCols());
+        Z(prevActivations.getDDRM(), a);
+        activationsPrime(a, a, new double[2 * size()]);
+
+        return SimpleMatrix.wrap(a);
+    }
 
-        for (int i = 0, length = neurons.size(); i < length; ++i) {
-            a.set(i, neurons.get(i).mechanics.activation.apply(a.get(i)));
+    // Z = WA + b, with b broadcast across the batch (one sample per column)
+    private void Z(DMatrixRMaj prevActivations, DMatrixRMaj z) {
+        int n = z.numCols;
+        for (int i = 0, size = b.numRows; i < size; i++) {
+            Arrays.fill(z.data, i * n, (i + 1) * n, b.data[i]); // Z = b
         }
+        CommonOps_DDRM.multAdd(W, prevActivations, z);          // Z += WA
+    }
 
-        return a;
+    //in-place A' = Activation(WA + b) using preallocated buffers, one sample per column; a may be z
+    //zs is scratch of length 2 * size()
+    void forward(DMatrixRMaj prevActivations, DMatrixRMaj z, DMatrixRMaj a, double[] zs) {
+        Z(prevActivations, z);
+        applyColumnwise(z, a, zs, false);
     }
 
-    //activations with respect to respective z
-    public SimpleMatrix activationsPrime(SimpleMatrix prevActivations) {
-        SimpleMatrix W = getWeights();
-        SimpleMatrix b = getBiases();
+    //whether the fused output error dJ/dZ = a - y applies; that is exact only for targets that sum to 1 (one-hot or a distribution)
+    public boolean isSoftmaxCrossentropy() {
+        return softmaxCrossentropy;
+    }
+
+    //A = Activation(Z) for already computed z, one sample per column; a may be z
+    void activate(DMatrixRMaj z, DMatrixRMaj a, double[] zs) {
+        applyColumnwise(z, a, zs, false);
+    }
+
+    //in-place dA/dZ for each sample (column) of z; out may be z itself, zs is scratch of length 2 * size()
+    public void activationsPrime(DMatrixRMaj z, DMatrixRMaj out, double[] zs) {
+        applyColumnwise(z, out, zs, true);
+    }
+
+    //a homogeneous layer is one run; setMechanics(MechIndex...) can split it into several
+    private void indexRuns() {
+        List<Activation> activations = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0, size = neurons.size(); i < size; i++) {
+            Activation activation = neurons.get(i).mechanics.activation;
+            if (activations.isEmpty() || activations.get(activations.size() - 1) != activation) {
+                activations.add(activation);
+                starts.add(i);
+            }
+        }
+        starts.add(neurons.size());
+
+        runActivations = activations.toArray(new Activation[0]);
+        runStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+
+        softmaxCrossentropy = runActivations.length == 1 && runActivations[0] == Activation.Softmax;
+        for (Neuron neuron : neurons) {
+            softmaxCrossentropy &= neuron.mechanics.loss == Loss.CategoricalCrossentropy;
+        }
+    }
+
+    private void applyColumnwise(DMatrixRMaj z, DMatrixRMaj out, double[] zs, boolean derivative) {
+        int n = z.numCols, size = neurons.size();
+
+        //multi-input runs first: they read whole raw columns of z, which out may alias
+        if (hasMultiInputRun()) {
+            for (int j = 0; j < n; j++) {
+                for (int i = 0, k = j; i < size; i++, k += n) { // zs[0, size) = raw column j
+                    zs[i] = z.data[k];
+                }
+
+                Activation computed = null; // activation whose vector result is in zs[size, 2 * size)
+                for (int r = 0; r < runActivations.length; r++) {
+                    Activation activation = runActivations[r];
+                    if (!activation.isMultiInput()) {
+                        continue;
+                    }
+
+                    if (activation != computed) { // the vector kernel sees the sample's whole layer
+                        System.arraycopy(zs, 0, zs, size, size);
+                        apply(activation, zs, size, size, derivative);
+                        computed = activation;
+                    }
+                    for (int i = runStarts[r], end = runStarts[r + 1]; i < end; i++) {
+                        out.data[i * n + j] = zs[size + i];
+                    }
+                }
+            }
+        }
 
-        SimpleMatrix a = W.mult(prevActivations).plus(b); // z
-        double[] zs = Operations.toArray(a);
+        //rows [start, end) of a row-major (size x n) matrix are contiguous, so each elementwise run is one kernel call
+        for (int r = 0; r < runActivations.length; r++) {
+            Activation activation = runActivations[r];
+            if (activation.isMultiInput()) {
+                continue;
+            }
+
+            int off = runStarts[r] * n, len = (runStarts[r + 1] - runStarts[r]) * n;
+            if (out != z) {
+                System.arraycopy(z.data, off, out.data, off, len);
+            }
+            apply(activation, out.data, off, len, derivative);
+        }
+    }
+
+    //the run index itself, for forward passes with their own kernels (Float32Network); callers must not modify it
+    Activation[] runActivations() {
+        return runActivations;
+    }
+
+    int[] runStarts() {
+        return runStarts;
+    }
+
+    private boolean hasMultiInputRun() {
+        for (Activation activation : runActivations) {
+            if (activation.isMultiInput()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
 
-        for (int i = 0, length = neurons.size(); i < length; ++i) {
-            a.set(i, neurons.get(i).mechanics.activation.autoApplyPartialDerivative(zs, i));
+    private static void apply(Activation activation, double[] z, int off, int len, boolean derivative) {
+        if (derivative) {
+            activation.applyPartialDerivativeInPlace(z, off, len);
+        } else {
+            activation.applyInPlace(z, off, len);
         }
+    }
+
+    //per-neuron mechanics only: W and b are empty, for forward passes that keep their own parameters
+    Layer mechanicsOnly() {
+        Layer layer = new Layer(size(), getActualMechanics().toArray(new Mechanics[0]), 0);
+        layer.mechanics = mechanics;
+
+        return layer;
+    }
+
+    public Layer copy() { //deep copy of weights, biases and per-neuron mechanics
+        Mechanics[] mechs = getActualMechanics().toArray(new Mechanics[0]);
+        Layer layer = new Layer(size(), mechs, prevLayerSize);
+        layer.mechanics = mechanics;
+        layer.W.setTo(W);
+        layer.b.setTo(b);
 
-        return a;
+        return layer;
     }
 
+    //detached neurons, each with its own (empty) weights; a Layer's neurons are views over its storage instead
     public static List<Neuron> constructNeurons(int size, Mechanics mech) {
         List<Neuron> ns = new ArrayList<>();
         for (int i = 0; i < size; i++) {
@@ -189,4 +346,22 @@ public class Layer {
 
         return ns;
     }
+
+    private List<Neuron> rowNeurons(int size, Mechanics mech) {
+        List<Neuron> ns = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ns.add(new Neuron(W, b, i, mech));
+        }
+
+        return ns;
+    }
+
+    private List<Neuron> rowNeurons(int size, Mechanics[] mechs) {
+        List<Neuron> ns = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ns.add(new Neuron(W, b, i, mechs[i]));
+        }
+
+        return ns;
+    }
 }
@@ -1,6 +1,7 @@
 package neuralnetwork;
 
 import math.Tensor;
+import neuralnetwork.training.Dataset;
 import neuralnetwork.training.LearningAlgorithm;
 import neuralnetwork.training.NetworkParams;
 import neuralnetwork.training.TrainingExample;
@@ -8,17 +9,27 @@ import neuralnetwork.util.MechIndex;
 import neuralnetwork.util.MechNetworkIndex;
 import neuralnetwork.util.Mechanics;
 import neuralnetwork.util.Operations;
+import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.DoubleUnaryOperator;
 
 public class NeuralNetwork {
     private final Layer[] layers;
+    private final AtomicLong version = new AtomicLong(); //bumped whenever params or mechanics change, for caches of outputs
 
     public NeuralNetwork(Layer[] layers) {
+        this(layers, true);
+    }
+
+    //randomize = false keeps the layers' current weights and biases, e.g. when they were just loaded
+    public NeuralNetwork(Layer[] layers, boolean randomize) {
         this.layers = layers;
-        reset(); //initialize weights and biases
+        if (randomize) {
+            reset(); //initialize weights and biases
+        }
     }
 
     public NeuralNetwork(int[] sizes) {
@@ -39,6 +50,7 @@ public class NeuralNetwork {
         for (MechNetworkIndex mechI : mechs) {
             layers[mechI.layer].setMechanics(mechI.mechIndex);
         }
+        markModified();
 
         return this;
     }
@@ -48,6 +60,7 @@ public class NeuralNetwork {
         for (MechIndex mechIndex : mechs) {
             layers[mechIndex.i].setDenseMechanics(mechIndex.mechanics);
         }
+        markModified();
 
         return this;
     }
@@ -65,10 +78,29 @@ public class NeuralNetwork {
 
     public int getNumLayers() { return layers.length; }
 
+    //changes on every modification made through this class or a layer's setters; equal versions mean equal outputs
+    public long getVersion() {
+        long sum = version.get();
+        for (Layer layer : layers) {
+            sum += layer.getModCount(); //every term only grows, so any change moves the sum
+        }
+
+        return sum;
+    }
+
+    //for code that writes the layers directly, e.g. through getNetworkParamsView or getLayer
+    public void markModified() {
+        version.incrementAndGet();
+    }
+
     public Layer getLayer(int i) {
         return layers[i];
     }
 
+    Layer[] getLayers() {
+        return layers;
+    }
+
     public Layer getInputLayer() {
         return layers[0];
     }
@@ -90,35 +122,67 @@ public class NeuralNetwork {
         return new NetworkParams(T_W, T_b);
     }
 
+    //zero-copy: the tensors wrap each layer's own W and b, so writing to them changes the network
+    public NetworkParams getNetworkParamsView() {
+        Tensor T_W = new Tensor(layers.length), T_b = new Tensor(layers.length);
+        for (int i = 0; i < layers.length; i++) {
+            T_W.set(i, layers[i].getWeights());
+            T_b.set(i, layers[i].getBiases());
+        }
+
+        return new NetworkParams(T_W, T_b);
+    }
+
     public void setNetworkParams(NetworkParams netParams) {
         setNetworkParams(netParams, 0);
     }
 
     public void setNetworkParams(NetworkParams netParams, int startLayer) {
         for (int l = startLayer; l < layers.length; l++) {
-            List<Neuron> neurons = layers[l].getNeurons();
-            SimpleMatrix W_l = netParams.TW.get(l);
-            SimpleMatrix b_l = netParams.Tb.get(l);
-            for (int i = 0, len = neurons.size(); i < len; i++) {
-                Neuron neuron = neurons.get(i);
-                neuron.weights = W_l.extractVector(true, i);
-                neuron.bias = b_l.get(i);
-            }
+            layers[l].setParams(netParams.TW.get(l), netParams.Tb.get(l));
         }
+        markModified();
     }
 
     public void train(List<TrainingExample> allTrainingExamples, LearningAlgorithm learningAlgorithm) {
-        NetworkParams currentNetworkParams = getNetworkParams();
-        learningAlgorithm.init(allTrainingExamples, currentNetworkParams.skeleton());
+        train(Dataset.of(allTrainingExamples), learningAlgorithm);
+    }
 
-        do {
-            /*NetworkParams gradient = calculateGradient(learningAlgorithm.shuffleData());
-            NetworkParams nextNetParams = learningAlgorithm.learnStep(currentNetworkParams, gradient);*/
-            NetworkParams nextNetParams = learningAlgorithm.learnStep(this, currentNetworkParams);
-            setNetworkParams(nextNetParams);
+    public void train(Dataset dataset, LearningAlgorithm learningAlgorithm) {
+        NetworkParams currentNetworkParams = getNetworkParamsView(); // in-place updates land directly in the layers
+        learningAlgorithm.init(dataset, currentNetworkParams.skeleton());
+        learningAlgorithm.trainingStarted(this);
+
+        try {
+            do {
+                /*NetworkParams gradient = calculateGradient(learningAlgorithm.shuffleData());
+                NetworkParams nextNetParams = learningAlgorithm.learnStep(currentNetworkParams, gradient);*/
+                learningAlgorithm.learnStep(this, currentNetworkParams); // new params are either written in place or set by learnStep
+                markModified();
+            } while (!learningAlgorithm.shouldStop());
+        } catch (RuntimeException | Error e) { // the params may be half updated: listeners only clean up, and e is what the caller sees
+            markModified();
+            learningAlgorithm.trainingFailed(this, e);
+            throw e;
+        }
 
-            System.err.println("NEW PARAMS: " + nextNetParams);
-        } while (!learningAlgorithm.doesConverge());
+        learningAlgorithm.trainingFinished(this);
+    }
+
+    //average over the examples of the output layer's summed loss
+    public double cost(List<TrainingExample> examples) {
+        ForwardWorkspace workspace = new ForwardWorkspace(this);
+        Layer outputLayer = getOutputLayer();
+
+        double total = 0.0;
+        for (TrainingExample example : examples) {
+            DMatrixRMaj a = predict(example.X, workspace);
+            for (int i = 0, size = outputLayer.size(); i < size; i++) {
+                total += outputLayer.get(i).getLossFunction().apply(a.data[i], example.Y.get(i));
+            }
+        }
+
+        return total / examples.size();
     }
 
     public SimpleMatrix predict(double[] X) {
@@ -127,40 +191,75 @@ public class NeuralNetwork {
     }
 
     public Tensor predictWithAllStats(double[] X) {
-        Tensor allActivations = new Tensor(layers.length); //record data of activations
+        ForwardWorkspace workspace = new ForwardWorkspace(this); //record data of activations
+        predict(X, workspace);
 
-        Layer currentLayer = layers[0]; //current layer is input layer
+        return workspace.toTensor();
+    }
 
-        currentLayer.zeroWeights(); // weights are 0 in the input layer
-        currentLayer.setBiases(X);  // inputs in the input layer
+    //X[j] is sample j; returns (output size x N) with one sample per column
+    public SimpleMatrix predictBatch(double[][] X) {
+        ForwardWorkspace workspace = new ForwardWorkspace(this, X.length);
+        workspace.setInputs(X);
 
-        //Forward Propagation
-        SimpleMatrix activations = currentLayer.getBiases(); //might seem redundant but it's for ANN stats
-        allActivations.set(0, activations.copy()); //data recording step
+        return SimpleMatrix.wrap(forward(layers, workspace));
+    }
 
-        for (int i = 1; i < layers.length; i++) {
-            currentLayer = layers[i];
-            activations = currentLayer.activations(activations); // a' = Activations(Wa + b)
+    //batched predictWithAllStats: layer l of the result is (size of layer l x N)
+    public Tensor predictBatchWithAllStats(double[][] X) {
+        ForwardWorkspace workspace = new ForwardWorkspace(this, X.length);
+        workspace.setInputs(X);
+        forward(layers, workspace);
 
-            allActivations.set(i, activations.copy()); //data recording step
-        }
+        return workspace.toTensor();
+    }
 
-        //System.err.println("Layer-wise params: \n" + getNetworkParams().toString());
-        //System.err.println("Layer-wise activations: \n" + allActivations);
-        return allActivations;
+    public ForwardWorkspace createWorkspace() {
+        return new ForwardWorkspace(this);
     }
 
-    public SimpleMatrix fastPredict(double[] X) { //doesn't record data
-        Layer currentLayer = layers[0]; //current layer is input layer
+    //allocation-free forward propagation; returns the workspace's output buffer, which the next call overwrites
+    public DMatrixRMaj predict(double[] X, ForwardWorkspace workspace) {
+        workspace.setInput(X);
+        return forward(layers, workspace);
+    }
 
-        currentLayer.zeroWeights();
-        currentLayer.setBiases(X);
+    //X is (input size x N) with one sample per column: each layer runs as one matrix-matrix product
+    //returns the workspace's (output size x N) buffer; allocation-free once the workspace has held a batch this large
+    public DMatrixRMaj predictBatch(DMatrixRMaj X, ForwardWorkspace workspace) {
+        workspace.setInputs(X);
+        return forward(layers, workspace);
+    }
+
+    //read-only snapshot of the current params that can be shared between threads
+    public CompiledNetwork compile() {
+        return new CompiledNetwork(this);
+    }
+
+    //FLOAT32 rounds the weights once and runs the matrix products in single precision
+    public Predictor compile(Precision precision) {
+        return (precision == Precision.FLOAT32) ? new Float32Network(this) : compile();
+    }
+
+    //int8 weights per row, activation ranges taken from a float64 pass over calibrationExamples
+    public QuantizedNetwork quantize(List<TrainingExample> calibrationExamples) {
+        return new QuantizedNetwork(this, calibrationExamples);
+    }
+
+    static DMatrixRMaj forward(Layer[] layers, ForwardWorkspace workspace) {
+        for (int l = 1; l < layers.length; l++) {
+            layers[l].forward(workspace.A[l - 1], workspace.Z[l], workspace.A[l], workspace.zs[l]); // A' = Activations(WA + b)
+        }
+
+        return workspace.getOutput();
+    }
 
+    public SimpleMatrix fastPredict(double[] X) { //doesn't record data; only reads the layers
         //Forward Propagation
         SimpleMatrix activations = Operations.colVector(X);
 
         for (int i = 1; i < layers.length; i++) {
-            currentLayer = layers[i];
+            Layer currentLayer = layers[i];
             activations = currentLayer.activations(activations); // a' = Activations(Wa + b)
         }
 
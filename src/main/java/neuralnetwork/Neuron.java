@@ -3,38 +3,37 @@ package neuralnetwork;
 import neuralnetwork.activation.Activation;
 import neuralnetwork.loss.Loss;
 import neuralnetwork.util.Mechanics;
+import neuralnetwork.util.Operations;
+import org.ejml.data.DMatrixRMaj;
 import org.ejml.simple.SimpleMatrix;
 
+import java.util.Arrays;
+
+//lightweight view of one row of its layer's W and b; the layer owns the storage
 public class Neuron {
-    protected SimpleMatrix weights;
-    protected double bias;
+    private final DMatrixRMaj W, b;
+    private final int row;
     protected Mechanics mechanics;
 
-    public Neuron(Mechanics mechanics) {
-        this.mechanics = mechanics;
-    }
-
-    protected Neuron(SimpleMatrix w, double b, Mechanics mech) {
-        weights = w;
-        bias = b;
-        mechanics = mech;
+    public Neuron(Mechanics mechanics) { //detached: no inputs and a bias of 0, like an input layer neuron
+        this(new DMatrixRMaj(1, 0), new DMatrixRMaj(1, 1), 0, mechanics);
     }
 
-    protected Neuron(double b) {
-        bias = b;
-    }
-
-    protected void initWandB(SimpleMatrix w, double b) {
-        weights = w;
-        bias = b;
+    protected Neuron(DMatrixRMaj W, DMatrixRMaj b, int row, Mechanics mechanics) {
+        this.W = W;
+        this.b = b;
+        this.row = row;
+        this.mechanics = mechanics;
     }
 
+    //copy of this neuron's row of W (row vector): writes to it don't reach the layer, use Layer.getWeights for that
     public SimpleMatrix getWeights() {
-        return weights;
+        int cols = W.numCols, offset = row * cols;
+        return Operations.rowVector(Arrays.copyOfRange(W.data, offset, offset + cols));
     }
 
     public double getBias() {
-        return bias;
+        return b.data[row];
     }
 
     public Activation getActivationFunction() {
@@ -46,11 +45,15 @@ public class Neuron {
     }
 
     public double z(SimpleMatrix prevActivations) {
-        return weights.dot(prevActivations) + bias;
+        double z = b.data[row];
+        for (int j = 0, cols = W.numCols, offset = row * cols; j < cols; j++) {
+            z += W.data[offset + j] * prevActivations.get(j);
+        }
+
+        return z;
     }
 
     public double activation(SimpleMatrix prevActivations) {
-        double z = weights.dot(prevActivations) + bias;
-        return mechanics.activation.apply(z);
+        return mechanics.activation.apply(z(prevActivations));
     }
 }
@@ -0,0 +1,13 @@
+package neuralnetwork;
+
+//storage precision of weights and biases outside of training, which is always done in float64
+public enum Precision {
+    FLOAT64(Double.BYTES),
+    FLOAT32(Float.BYTES);
+
+    public final int bytes; //per element
+
+    private Precision(int bytes) {
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,131 @@
+package neuralnetwork;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//memoizes predict in front of a live network: outputs are kept per input, compared bit for bit, in an LRU map of at
+//most maxEntries; any change to the network (its version) empties the cache before the next lookup
+//misses run on a CompiledNetwork snapshot of the current version, so it's safe to share between threads
+public class PredictionCache {
+    private static final class Key {
+        final double[] X;
+        final int hash;
+
+        Key(double[] X) {
+            this.X = X;
+            int h = 1;
+            for (double x : X) {
+                long bits = Double.doubleToLongBits(x); //same equality as Arrays.equals: NaN == NaN, 0.0 != -0.0
+                h = 31 * h + (int) (bits ^ (bits >>> 32));
+            }
+            hash = h;
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).hash == hash && Arrays.equals(((Key) other).X, X);
+        }
+    }
+
+    private final NeuralNetwork network;
+    private final int maxEntries;
+    private final LinkedHashMap<Key, double[]> entries; //access order: eldest = least recently used; guarded by this
+    private long version;
+    private CompiledNetwork snapshot; //of version, built on the first miss after a change
+    private long hits, misses, evictions, invalidations;
+
+    public PredictionCache(NeuralNetwork network, int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+
+        this.network = network;
+        this.maxEntries = maxEntries;
+        version = network.getVersion();
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+                if (size() > PredictionCache.this.maxEntries) {
+                    ++evictions;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public double[] predict(double[] X) {
+        double[] output = new double[network.getOutputLayer().size()];
+        predict(X, output);
+
+        return output;
+    }
+
+    public void predict(double[] X, double[] output) {
+        Key key = new Key(X);
+        CompiledNetwork snapshot;
+        long version;
+        synchronized (this) {
+            validate();
+            double[] cached = entries.get(key);
+            if (cached != null) {
+                ++hits;
+                System.arraycopy(cached, 0, output, 0, cached.length);
+                return;
+            }
+
+            ++misses;
+            if (this.snapshot == null) {
+                this.snapshot = network.compile();
+            }
+            snapshot = this.snapshot;
+            version = this.version;
+        }
+
+        snapshot.predict(X, output); //outside the lock
+        synchronized (this) {
+            if (version == this.version && version == network.getVersion()) { //the network didn't change meanwhile
+                entries.put(new Key(X.clone()), output.clone());
+            }
+        }
+    }
+
+    public synchronized int size() { return entries.size(); }
+
+    public synchronized long getHits() { return hits; }
+
+    public synchronized long getMisses() { return misses; }
+
+    public synchronized long getEvictions() { return evictions; }
+
+    public synchronized long getInvalidations() { return invalidations; }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return (lookups == 0) ? 0.0 : (double) hits / lookups;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PredictionCache {size: " + entries.size() + ", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions +
+               ", invalidations: " + invalidations + "}";
+    }
+
+    private void validate() {
+        long current = network.getVersion();
+        if (current != version) {
+            version = current;
+            snapshot = null;
+            entries.clear();
+            ++invalidations;
+        }
+    }
+}
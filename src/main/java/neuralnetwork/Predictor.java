@@ -0,0 +1,15 @@
+package neuralnetwork;
+
+//read-only, thread-safe inference over a frozen copy of a network, whatever its internal representation
+public interface Predictor {
+    public int getInputSize();
+
+    public int getOutputSize();
+
+    public double[] predict(double[] X);
+
+    //allocation-free once the calling thread's buffers exist
+    public void predict(double[] X, double[] output);
+
+    public double[][] predictBatch(double[][] X); //row j of the result is the output for X[j]
+}
@@ -0,0 +1,288 @@
+package neuralnetwork;
+
+import neuralnetwork.training.TrainingExample;
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.List;
+
+//post-training int8 inference snapshot of a NeuralNetwork (see NeuralNetwork.quantize)
+//each row of W is stored as int8 with its own scale (max |w| / 127), and each layer's input activations are quantized
+//with a single scale calibrated as max |a| / 127 over a calibration set; z is then an int32 dot product rescaled once per
+//neuron, plus the float64 bias. Activations run through the layers' own double kernels
+//shareable between threads like CompiledNetwork, each thread gets its own buffers
+public final class QuantizedNetwork implements Predictor {
+    public static final int LEVELS = 127; //symmetric int8 range [-127, 127]
+
+    private final byte[][] W;         //W[l] is row-major (size x prevLayerSize)
+    private final double[][] rowScale; //rowScale[l][i] * inputScale[l] turns row i's integer dot product back into z units
+    private final double[] inputScale; //quantization step of layer l's input, i.e. of the activations of layer l - 1
+    private final double[][] b;
+    private final Layer[] mechanics;   //per-neuron mechanics of each layer, without parameters
+    private final int inputSize, outputSize;
+    private final ThreadLocal<Workspace> workspaces;
+
+    QuantizedNetwork(NeuralNetwork network, List<TrainingExample> calibrationExamples) {
+        if (calibrationExamples.isEmpty()) {
+            throw new IllegalArgumentException("quantization needs at least one calibration example");
+        }
+
+        int numLayers = network.getNumLayers();
+        W = new byte[numLayers][];
+        rowScale = new double[numLayers][];
+        inputScale = new double[numLayers];
+        b = new double[numLayers][];
+        mechanics = new Layer[numLayers];
+
+        double[] maxActivation = calibrate(network, calibrationExamples);
+        for (int l = 0; l < numLayers; l++) {
+            Layer layer = network.getLayer(l);
+            mechanics[l] = layer.mechanicsOnly();
+            b[l] = layer.getBiases().getDDRM().data.clone();
+            if (l == 0) {
+                continue; //the input layer has no weights
+            }
+
+            DMatrixRMaj weights = layer.getWeights().getDDRM();
+            int size = weights.numRows, prevSize = weights.numCols;
+            W[l] = new byte[size * prevSize];
+            rowScale[l] = new double[size];
+            for (int i = 0; i < size; i++) {
+                double max = 0.0;
+                for (int k = i * prevSize, end = k + prevSize; k < end; k++) {
+                    max = Math.max(max, Math.abs(weights.data[k]));
+                }
+
+                double scale = (max > 0) ? max / LEVELS : 1.0;
+                rowScale[l][i] = scale;
+                for (int k = i * prevSize, end = k + prevSize; k < end; k++) {
+                    W[l][k] = quantize(weights.data[k], scale);
+                }
+            }
+
+            inputScale[l] = (maxActivation[l - 1] > 0) ? maxActivation[l - 1] / LEVELS : 1.0;
+        }
+
+        inputSize = mechanics[0].size();
+        outputSize = mechanics[numLayers - 1].size();
+        workspaces = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    @Override
+    public int getInputSize() { return inputSize; }
+
+    @Override
+    public int getOutputSize() { return outputSize; }
+
+    public long getWeightBytes() { //int8 weights plus per-row scales, against 8 bytes per weight in float64
+        long bytes = 0;
+        for (int l = 1; l < W.length; l++) {
+            bytes += W[l].length + (long) Double.BYTES * rowScale[l].length;
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public double[] predict(double[] X) {
+        double[] output = new double[outputSize];
+        predict(X, output);
+
+        return output;
+    }
+
+    @Override
+    public void predict(double[] X, double[] output) {
+        checkInputSize(X.length);
+        Workspace workspace = workspaces.get();
+        workspace.reshape(1);
+        System.arraycopy(X, 0, workspace.A[0].data, 0, inputSize);
+
+        System.arraycopy(forward(workspace).data, 0, output, 0, outputSize);
+    }
+
+    @Override
+    public double[][] predictBatch(double[][] X) {
+        Workspace workspace = workspaces.get();
+        int n = X.length;
+        for (double[] X_j : X) {
+            checkInputSize(X_j.length);
+        }
+        workspace.reshape(n);
+
+        double[] a = workspace.A[0].data;
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < inputSize; i++) {
+                a[i * n + j] = X[j][i];
+            }
+        }
+
+        double[] out = forward(workspace).data;
+        double[][] outputs = new double[n][outputSize];
+        for (int i = 0; i < outputSize; i++) {
+            for (int j = 0; j < n; j++) {
+                outputs[j][i] = out[i * n + j];
+            }
+        }
+
+        return outputs;
+    }
+
+    //compares this model against reference (usually the float64 CompiledNetwork) on examples
+    public AccuracyReport compare(Predictor reference, List<TrainingExample> examples) {
+        double[] expected = new double[outputSize], actual = new double[outputSize];
+        double maxError = 0.0, absoluteSum = 0.0, squaredSum = 0.0;
+        int argmaxAgreements = 0;
+
+        for (TrainingExample example : examples) {
+            reference.predict(example.X, expected);
+            predict(example.X, actual);
+
+            for (int i = 0; i < outputSize; i++) {
+                double error = Math.abs(actual[i] - expected[i]);
+                maxError = Math.max(maxError, error);
+                absoluteSum += error;
+                squaredSum += error * error;
+            }
+            if (argmax(expected) == argmax(actual)) {
+                ++argmaxAgreements;
+            }
+        }
+
+        long values = (long) examples.size() * outputSize;
+        return new AccuracyReport(examples.size(), maxError, absoluteSum / values, Math.sqrt(squaredSum / values),
+                                  (double) argmaxAgreements / examples.size(), getWeightBytes());
+    }
+
+    public static final class AccuracyReport {
+        public final int examples;
+        public final double maxAbsoluteError, meanAbsoluteError, rootMeanSquaredError;
+        public final double argmaxAgreement; //fraction of examples whose largest output is the same neuron
+        public final long weightBytes;
+
+        AccuracyReport(int examples, double maxAbsoluteError, double meanAbsoluteError, double rootMeanSquaredError,
+                       double argmaxAgreement, long weightBytes) {
+            this.examples = examples;
+            this.maxAbsoluteError = maxAbsoluteError;
+            this.meanAbsoluteError = meanAbsoluteError;
+            this.rootMeanSquaredError = rootMeanSquaredError;
+            this.argmaxAgreement = argmaxAgreement;
+            this.weightBytes = weightBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("int8 vs reference over %d examples: max |error| %.3g, mean |error| %.3g, rmse %.3g, argmax agreement %.1f%%, weights %d bytes",
+                    examples, maxAbsoluteError, meanAbsoluteError, rootMeanSquaredError, 100 * argmaxAgreement, weightBytes);
+        }
+    }
+
+    private void checkInputSize(int features) { //a short input would silently reuse the previous call's values
+        if (features != inputSize) {
+            throw new IllegalArgumentException("expected " + inputSize + " features, got " + features);
+        }
+    }
+
+    private DMatrixRMaj forward(Workspace workspace) {
+        int n = workspace.batchSize;
+        for (int l = 1; l < W.length; l++) {
+            DMatrixRMaj prev = workspace.A[l - 1], z = workspace.A[l];
+            int size = z.numRows, prevSize = prev.numRows;
+
+            //quantize the inputs sample-major so each dot product reads two contiguous int8 runs
+            byte[] q = workspace.quantized;
+            double step = inputScale[l];
+            for (int k = 0; k < prevSize; k++) {
+                for (int j = 0; j < n; j++) {
+                    q[j * prevSize + k] = quantize(prev.data[k * n + j], step);
+                }
+            }
+
+            byte[] W_l = W[l];
+            for (int i = 0; i < size; i++) {
+                double scale = rowScale[l][i] * step, bias = b[l][i];
+                int row = i * prevSize;
+                for (int j = 0; j < n; j++) {
+                    int dot = 0; //exact for prevLayerSize < 2^31 / 127^2
+                    for (int k = 0, qj = j * prevSize; k < prevSize; k++) {
+                        dot += W_l[row + k] * q[qj + k];
+                    }
+                    z.data[i * n + j] = dot * scale + bias;
+                }
+            }
+
+            mechanics[l].activate(z, z, workspace.zs[l]);
+        }
+
+        return workspace.A[W.length - 1];
+    }
+
+    //largest |activation| of every layer over the calibration set, from one batched float64 pass
+    private static double[] calibrate(NeuralNetwork network, List<TrainingExample> calibrationExamples) {
+        double[][] X = new double[calibrationExamples.size()][];
+        for (int j = 0; j < X.length; j++) {
+            X[j] = calibrationExamples.get(j).X;
+        }
+
+        ForwardWorkspace workspace = new ForwardWorkspace(network, X.length);
+        workspace.setInputs(X);
+        NeuralNetwork.forward(network.getLayers(), workspace);
+
+        double[] max = new double[network.getNumLayers()];
+        for (int l = 0; l < max.length; l++) {
+            DMatrixRMaj a = workspace.getActivations(l);
+            for (int k = 0, length = a.getNumElements(); k < length; k++) {
+                max[l] = Math.max(max[l], Math.abs(a.data[k]));
+            }
+        }
+
+        return max;
+    }
+
+    private static byte quantize(double value, double step) {
+        long level = Math.round(value / step);
+        return (byte) Math.max(-LEVELS, Math.min(LEVELS, level));
+    }
+
+    private static int argmax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    //per-thread activations (layer size x batch size) and the quantized input of the layer being computed
+    private final class Workspace {
+        final DMatrixRMaj[] A = new DMatrixRMaj[W.length];
+        final double[][] zs = new double[W.length][];
+        byte[] quantized = new byte[0];
+        int batchSize = 0;
+
+        Workspace() {
+            for (int l = 0; l < A.length; l++) {
+                A[l] = new DMatrixRMaj(mechanics[l].size(), 1);
+                zs[l] = new double[2 * mechanics[l].size()];
+            }
+            reshape(1);
+        }
+
+        void reshape(int batchSize) {
+            if (batchSize == this.batchSize) {
+                return;
+            }
+
+            int widest = 0;
+            for (DMatrixRMaj a : A) {
+                a.reshape(a.numRows, batchSize, false);
+                widest = Math.max(widest, a.numRows);
+            }
+            if (quantized.length < widest * batchSize) {
+                quantized = new byte[widest * batchSize];
+            }
+            this.batchSize = batchSize;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import neuralnetwork.Globals;
 import neuralnetwork.util.Operations;
 import org.ejml.simple.SimpleMatrix;
 
+import java.util.Arrays;
 import java.util.function.DoubleUnaryOperator;
 
 public class Activation {
@@ -12,20 +13,68 @@ public class Activation {
         double ogdenom = 1 + exp;
 
         return exp / (ogdenom*ogdenom);
+    }, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            z[k] = 1.0 / (1.0 + Math.exp(-z[k]));
+        }
+    }, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            double exp = Math.exp(-z[k]);
+            double ogdenom = 1 + exp;
+            z[k] = exp / (ogdenom*ogdenom);
+        }
+    });
+
+    public static final Activation ReLU = new Activation((z) -> Math.max(0, z), (z) -> (z > 0) ? 1.0 : 0.0, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            z[k] = Math.max(0, z[k]);
+        }
+    }, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            z[k] = (z[k] > 0) ? 1.0 : 0.0;
+        }
     });
 
-    public static final Activation ReLU = new Activation((z) -> Math.max(0, z));
+    public static final Activation tanh = new Activation(Math::tanh, (z) -> {
+        double t = Math.tanh(z);
+        return 1.0 - t*t;
+    }, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            z[k] = Math.tanh(z[k]);
+        }
+    }, (z, off, len) -> {
+        for (int k = off, end = off + len; k < end; k++) {
+            double t = Math.tanh(z[k]);
+            z[k] = 1.0 - t*t;
+        }
+    });
+
+    //d/dz_i of a_i only (the diagonal of the Jacobian); pair with Loss.CategoricalCrossentropy for the exact fused gradient
+    public static final Activation Softmax = new Activation(Activation::softmax, (zs, i) -> {
+        double s = softmax(zs, i);
+        return s * (1.0 - s);
+    }, Activation::softmaxInPlace, (z, off, len) -> {
+        softmaxInPlace(z, off, len);
+        for (int k = off, end = off + len; k < end; k++) {
+            z[k] = z[k] * (1.0 - z[k]);
+        }
+    });
 
-    public static final Activation tanh = new Activation((z) -> ((Math.exp(z) - Math.exp(-z)) / (Math.exp(z) + Math.exp(-z))) );
-    public static final Activation Softmax = new Activation((zs, i) -> (Math.exp(zs[i]) / Operations.sum(zs)),
-                                                            (zs, i) -> Operations.derivative((zs_i) -> (Math.exp(zs_i) / Operations.sum(zs)), zs[i], Globals.DERIVATIVE_SPECIFICITY)); //TODO: change later
-    public static final Activation Linear = new Activation((z) -> z);
+    public static final Activation Linear = new Activation((z) -> z, (z) -> 1.0, (z, off, len) -> {}, (z, off, len) -> Arrays.fill(z, off, off + len, 1.0));
 
     public static interface MultiInputActivator {
         public double applyAsDouble(double[] inputs, int i);
     }
+
+    //whole-vector kernel over z[off, off + len): one call per run of neurons instead of a lambda call per element,
+    //and multi-input activations don't redo O(n) work per element
+    public static interface VectorActivator {
+        public void applyInPlace(double[] z, int off, int len);
+    }
+
     private DoubleUnaryOperator activationFunc, partialDerivative_z;
     private MultiInputActivator multiInputActivationFunc, multiInputPartialDerivative;
+    private VectorActivator vectorActivationFunc, vectorPartialDerivative;
     public Activation(DoubleUnaryOperator func) {
         activationFunc = func;
         partialDerivative_z = (z) -> Operations.derivative(activationFunc, z, Globals.DERIVATIVE_SPECIFICITY);
@@ -36,11 +85,23 @@ public class Activation {
         partialDerivative_z = d_dz;
     }
 
+    public Activation(DoubleUnaryOperator func, DoubleUnaryOperator d_dz, VectorActivator vectorFunc, VectorActivator vectorD_dz) {
+        this(func, d_dz);
+        vectorActivationFunc = vectorFunc;
+        vectorPartialDerivative = vectorD_dz;
+    }
+
     public Activation(MultiInputActivator func, MultiInputActivator d_dz) {
         multiInputActivationFunc = func;
         multiInputPartialDerivative = d_dz;
     }
 
+    public Activation(MultiInputActivator func, MultiInputActivator d_dz, VectorActivator vectorFunc, VectorActivator vectorD_dz) {
+        this(func, d_dz);
+        vectorActivationFunc = vectorFunc;
+        vectorPartialDerivative = vectorD_dz;
+    }
+
     public boolean isMultiInput() {
         return multiInputActivationFunc != null;
     }
@@ -86,4 +147,78 @@ public class Activation {
             return multiInputPartialDerivative.applyAsDouble(zs, i);
         }
     }
+
+    //finite-difference derivative, for checking the closed forms above
+    public double numericPartialDerivative(double[] zs, int i) {
+        double[] shifted = zs.clone();
+        return Operations.derivative((zs_i) -> {
+            shifted[i] = zs_i;
+            return autoApply(shifted, i);
+        }, zs[i], Globals.DERIVATIVE_SPECIFICITY);
+    }
+
+    //z[off, off + len) -> activations of z[off, off + len); a multi-input activation treats the range as its whole input
+    public void applyInPlace(double[] z, int off, int len) {
+        if (vectorActivationFunc != null) {
+            vectorActivationFunc.applyInPlace(z, off, len);
+        } else if (activationFunc != null) {
+            for (int k = off, end = off + len; k < end; k++) {
+                z[k] = activationFunc.applyAsDouble(z[k]);
+            }
+        } else {
+            applyMultiInputInPlace(multiInputActivationFunc, z, off, len);
+        }
+    }
+
+    //z[off, off + len) -> dA/dZ of z[off, off + len)
+    public void applyPartialDerivativeInPlace(double[] z, int off, int len) {
+        if (vectorPartialDerivative != null) {
+            vectorPartialDerivative.applyInPlace(z, off, len);
+        } else if (partialDerivative_z != null) {
+            for (int k = off, end = off + len; k < end; k++) {
+                z[k] = partialDerivative_z.applyAsDouble(z[k]);
+            }
+        } else {
+            applyMultiInputInPlace(multiInputPartialDerivative, z, off, len);
+        }
+    }
+
+    private static void applyMultiInputInPlace(MultiInputActivator func, double[] z, int off, int len) {
+        double[] zs = Arrays.copyOfRange(z, off, off + len);
+        for (int i = 0; i < len; i++) {
+            z[off + i] = func.applyAsDouble(zs, i);
+        }
+    }
+
+    private static double softmax(double[] zs, int i) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double z : zs) {
+            max = Math.max(max, z);
+        }
+
+        double sum = 0.0;
+        for (double z : zs) {
+            sum += Math.exp(z - max); //shifted by max for numerical stability
+        }
+
+        return Math.exp(zs[i] - max) / sum;
+    }
+
+    private static void softmaxInPlace(double[] z, int off, int len) {
+        int end = off + len;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = off; k < end; k++) {
+            max = Math.max(max, z[k]);
+        }
+
+        double sum = 0.0;
+        for (int k = off; k < end; k++) {
+            z[k] = Math.exp(z[k] - max);
+            sum += z[k];
+        }
+
+        for (int k = off; k < end; k++) {
+            z[k] /= sum;
+        }
+    }
 }
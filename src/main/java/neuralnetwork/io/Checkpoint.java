@@ -0,0 +1,357 @@
+package neuralnetwork.io;
+
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.Precision;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.util.MechIndex;
+import neuralnetwork.util.Mechanics;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary model file, little-endian:
+ * header: int magic "NNCK", short version, byte precision (0 = float64, 1 = float32), byte 0, int layer count
+ * per layer: int size, int prevLayerSize, byte activation id, byte loss id (layer default), then (activation id, loss id) per neuron
+ * zero padding to a multiple of 8, then per layer W (row-major, size x prevLayerSize) followed by b, in the given precision
+ * training checkpoints (TrainingCheckpointer) append a state trailer, which load skips
+ * load and loadInto map each parameter block READ_ONLY and copy it straight into the layers; saving goes through positional
+ * channel writes instead, so force covers every byte and no write mapping outlives the channel
+ * a mapping is only released by the GC, and on Windows a mapped file can't be replaced: TrainingCheckpointer, which renames over
+ * the file it resumed from, reads it through the channel instead
+ */
+public final class Checkpoint {
+    public static final int MAGIC = 0x4B434E4E; //"NNCK" in file order
+    public static final short VERSION = 1;
+    static final int BLOCK_BUFFER_BYTES = 1 << 16; //parameters go through the channel in chunks of this size
+
+    //ids are part of the format: only append
+    private static final Activation[] ACTIVATIONS = {Activation.Sigmoid, Activation.ReLU, Activation.tanh, Activation.Softmax, Activation.Linear};
+    private static final Loss[] LOSSES = {Loss.SquaredError, Loss.AbsoluteError, Loss.BinaryCrossentropy, Loss.CategoricalCrossentropy, Loss.None};
+
+    private Checkpoint() {}
+
+    public static void save(NeuralNetwork network, Path path) throws IOException {
+        save(network, path, Precision.FLOAT64);
+    }
+
+    public static void save(NeuralNetwork network, Path path, Precision precision) throws IOException {
+        Layer[] layers = new Layer[network.getNumLayers()];
+        for (int l = 0; l < layers.length; l++) {
+            layers[l] = network.getLayer(l);
+        }
+
+        write(layers, path, precision);
+    }
+
+    static void write(Layer[] layers, Path path, Precision precision) throws IOException {
+        ByteBuffer header = header(layers, precision);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            ByteBuffer buffer = blockBuffer();
+            long position = header.limit();
+            for (Layer layer : layers) {
+                position = writeBlock(channel, position, layer.getWeights().getDDRM().data, precision, buffer);
+                position = writeBlock(channel, position, layer.getBiases().getDDRM().data, precision, buffer);
+            }
+
+            channel.force(false); //everything went through channel.write, so this covers all of it
+        }
+    }
+
+    //new network with the checkpoint's layers, mechanics and parameters
+    public static NeuralNetwork load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+
+            Layer[] layers = new Layer[header.sizes.length];
+            for (int l = 0; l < layers.length; l++) {
+                layers[l] = new Layer(header.sizes[l], header.mechanics[l], header.prevSizes[l]);
+                layers[l].setMechanics(header.overrides.get(l));
+            }
+
+            readParams(channel, header, layers, true);
+            return new NeuralNetwork(layers, false);
+        }
+    }
+
+    //reads a checkpoint into an existing network of the same shape, replacing its mechanics and parameters
+    public static void loadInto(Path path, NeuralNetwork network) throws IOException {
+        loadInto(path, network, true);
+    }
+
+    //mapped = false reads through the channel, leaving no mapping behind that would pin the file
+    static void loadInto(Path path, NeuralNetwork network, boolean mapped) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header.sizes.length != network.getNumLayers()) {
+                throw new IllegalArgumentException("checkpoint has " + header.sizes.length + " layers, network has " + network.getNumLayers());
+            }
+
+            Layer[] layers = new Layer[header.sizes.length];
+            for (int l = 0; l < layers.length; l++) {
+                layers[l] = network.getLayer(l);
+                if (layers[l].size() != header.sizes[l] || layers[l].getWeights().numCols() != header.prevSizes[l]) {
+                    throw new IllegalArgumentException("layer " + l + " is " + layers[l].size() + "x" + layers[l].getWeights().numCols() +
+                                                       ", checkpoint has " + header.sizes[l] + "x" + header.prevSizes[l]);
+                }
+            }
+
+            readParams(channel, header, layers, mapped);
+            for (int l = 0; l < layers.length; l++) {
+                layers[l].setDenseMechanics(header.mechanics[l]);
+                layers[l].setMechanics(header.overrides.get(l));
+            }
+            network.markModified();
+        }
+    }
+
+    private static final class Header {
+        Precision precision;
+        int[] sizes, prevSizes;
+        Mechanics[] mechanics; //layer defaults
+        List<MechIndex[]> overrides = new ArrayList<>(); //neurons that differ from their layer's default
+        long dataOffset;
+    }
+
+    static ByteBuffer header(Layer[] layers, Precision precision) {
+        int length = 12;
+        for (Layer layer : layers) {
+            length += 10 + 2 * layer.size();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate((int) align(length)).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).put((byte) precision.ordinal()).put((byte) 0).putInt(layers.length);
+        for (Layer layer : layers) {
+            header.putInt(layer.size()).putInt(layer.getWeights().numCols());
+            putMechanics(header, layer.getStandardMechanics());
+            for (Mechanics mechanics : layer.getActualMechanics()) {
+                putMechanics(header, mechanics);
+            }
+        }
+
+        header.position(0);
+        return header;
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer fixed = read(channel, 0, 12);
+        if (fixed.getInt() != MAGIC) {
+            throw new IOException("not a checkpoint file");
+        }
+
+        short version = fixed.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported checkpoint version " + version + " (this build reads up to " + VERSION + ")");
+        }
+
+        int precision = fixed.get();
+        fixed.get();
+        int numLayers = fixed.getInt();
+        if (precision < 0 || precision >= Precision.values().length || numLayers < 0) {
+            throw new IOException("corrupt checkpoint header");
+        }
+
+        Header header = new Header();
+        header.precision = Precision.values()[precision];
+        header.sizes = new int[numLayers];
+        header.prevSizes = new int[numLayers];
+        header.mechanics = new Mechanics[numLayers];
+
+        Mechanics[][] shared = new Mechanics[ACTIVATIONS.length][LOSSES.length]; //one instance per pair keeps activation runs intact
+        long position = 12;
+        for (int l = 0; l < numLayers; l++) {
+            ByteBuffer layer = read(channel, position, 10);
+            int size = layer.getInt(), prevSize = layer.getInt();
+            if (size < 0 || prevSize < 0) {
+                throw new IOException("corrupt checkpoint header");
+            }
+
+            header.sizes[l] = size;
+            header.prevSizes[l] = prevSize;
+            header.mechanics[l] = getMechanics(layer, shared);
+
+            ByteBuffer neurons = read(channel, position + 10, 2 * size);
+            List<MechIndex> overrides = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Mechanics mechanics = getMechanics(neurons, shared);
+                if (mechanics != header.mechanics[l]) {
+                    overrides.add(new MechIndex(i, mechanics));
+                }
+            }
+            header.overrides.add(overrides.toArray(new MechIndex[0]));
+
+            position += 10 + 2 * size;
+        }
+
+        header.dataOffset = align(position);
+        return header;
+    }
+
+    //bytes taken by the header and parameters; anything after that (e.g. a training state trailer) is ignored by load
+    static long modelLength(FileChannel channel) throws IOException {
+        Header header = readHeader(channel);
+        long length = header.dataOffset;
+        for (int l = 0; l < header.sizes.length; l++) {
+            length += (long) header.sizes[l] * (header.prevSizes[l] + 1) * header.precision.bytes;
+        }
+
+        return length;
+    }
+
+    private static void readParams(FileChannel channel, Header header, Layer[] layers, boolean mapped) throws IOException {
+        ByteBuffer buffer = mapped ? null : blockBuffer();
+        long position = header.dataOffset;
+        for (Layer layer : layers) {
+            for (double[] block : new double[][]{layer.getWeights().getDDRM().data, layer.getBiases().getDDRM().data}) {
+                position = mapped ? mapBlock(channel, position, block, header.precision)
+                                  : readBlock(channel, position, block, header.precision, buffer);
+            }
+        }
+    }
+
+    //reusable scratch for readBlock and writeBlock
+    static ByteBuffer blockBuffer() {
+        return ByteBuffer.allocateDirect(BLOCK_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    //maps the block and copies it out in bulk: one copy, no parsing, and no per-element work for float64
+    private static long mapBlock(FileChannel channel, long position, double[] block, Precision precision) throws IOException {
+        long length = (long) block.length * precision.bytes;
+        if (position + length > channel.size()) {
+            throw new EOFException("checkpoint is truncated");
+        }
+
+        if (length > 0) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (precision == Precision.FLOAT64) {
+                mapped.asDoubleBuffer().get(block);
+            } else {
+                FloatBuffer floats = mapped.asFloatBuffer();
+                for (int i = 0; i < block.length; i++) {
+                    block[i] = floats.get(i);
+                }
+            }
+        }
+
+        return position + length;
+    }
+
+    //the same through buffer, a chunk at a time, for readers that must not leave a mapping behind
+    //writeBlock is its counterpart: plain writes, so force covers them
+    private static long readBlock(FileChannel channel, long position, double[] block, Precision precision, ByteBuffer buffer) throws IOException {
+        long length = (long) block.length * precision.bytes;
+        if (position + length > channel.size()) {
+            throw new EOFException("checkpoint is truncated");
+        }
+
+        int perChunk = buffer.capacity() / precision.bytes;
+        for (int from = 0; from < block.length; from += perChunk) {
+            int count = Math.min(perChunk, block.length - from);
+            buffer.clear().limit(count * precision.bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("checkpoint is truncated");
+                }
+            }
+
+            buffer.flip();
+            if (precision == Precision.FLOAT64) {
+                buffer.asDoubleBuffer().get(block, from, count);
+            } else {
+                FloatBuffer floats = buffer.asFloatBuffer();
+                for (int i = 0; i < count; i++) {
+                    block[from + i] = floats.get(i);
+                }
+            }
+            position += (long) count * precision.bytes;
+        }
+
+        return position;
+    }
+
+    static long writeBlock(FileChannel channel, long position, double[] block, Precision precision, ByteBuffer buffer) throws IOException {
+        int perChunk = buffer.capacity() / precision.bytes;
+        for (int from = 0; from < block.length; from += perChunk) {
+            int count = Math.min(perChunk, block.length - from);
+            buffer.clear();
+            if (precision == Precision.FLOAT64) {
+                DoubleBuffer doubles = buffer.asDoubleBuffer();
+                doubles.put(block, from, count);
+            } else {
+                FloatBuffer floats = buffer.asFloatBuffer();
+                for (int i = 0; i < count; i++) {
+                    floats.put(i, (float) block[from + i]);
+                }
+            }
+
+            buffer.limit(count * precision.bytes);
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+
+        return position;
+    }
+
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("checkpoint is truncated");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void putMechanics(ByteBuffer buffer, Mechanics mechanics) {
+        buffer.put((byte) id(ACTIVATIONS, mechanics.activation, "activation")).put((byte) id(LOSSES, mechanics.loss, "loss"));
+    }
+
+    private static Mechanics getMechanics(ByteBuffer buffer, Mechanics[][] shared) throws IOException {
+        int activation = buffer.get(), loss = buffer.get();
+        if (activation < 0 || activation >= ACTIVATIONS.length || loss < 0 || loss >= LOSSES.length) {
+            throw new IOException("unknown mechanics id (" + activation + ", " + loss + ")");
+        }
+
+        if (shared[activation][loss] == null) {
+            shared[activation][loss] = new Mechanics(ACTIVATIONS[activation], LOSSES[loss]);
+        }
+
+        return shared[activation][loss];
+    }
+
+    private static int id(Object[] table, Object value, String kind) {
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == value) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("only built-in " + kind + "s can be checkpointed");
+    }
+
+    private static long align(long length) {
+        return (length + 7) & ~7L;
+    }
+}
@@ -0,0 +1,82 @@
+package neuralnetwork.io;
+
+//running statistics of one numeric column, updated one value at a time (NaN values are counted as missing and skipped)
+//mean and variance use Welford's update so a single pass is numerically stable; merge combines chunks
+public final class ColumnStats {
+    public enum Scaling {
+        NONE, MAX_ABS, MIN_MAX, STANDARD
+    }
+
+    private long count, missing;
+    private double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    private double mean, m2; //m2 = sum of squared deviations from the mean
+
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            ++missing;
+            return;
+        }
+
+        ++count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+    }
+
+    public void merge(ColumnStats other) {
+        missing += other.missing;
+        if (other.count == 0) {
+            return;
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += delta * other.count / total;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        count = total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() { return count; }
+
+    public long getMissing() { return missing; }
+
+    public double getMin() { return min; }
+
+    public double getMax() { return max; }
+
+    public double getMaxAbs() { return (count == 0) ? 0.0 : Math.max(Math.abs(min), Math.abs(max)); }
+
+    public double getMean() { return mean; }
+
+    public double getStandardDeviation() { return (count == 0) ? 0.0 : Math.sqrt(m2 / count); }
+
+    //O(1) feature scaling from the cached statistics; a constant column maps to 0 instead of dividing by 0
+    public double scale(double value, Scaling scaling) {
+        switch (scaling) {
+            case MAX_ABS: {
+                double maxAbs = getMaxAbs();
+                return (maxAbs == 0.0) ? 0.0 : value / maxAbs;
+            }
+            case MIN_MAX: {
+                double range = max - min;
+                return (range == 0.0) ? 0.0 : (value - min) / range;
+            }
+            case STANDARD: {
+                double std = getStandardDeviation();
+                return (std == 0.0) ? 0.0 : (value - mean) / std;
+            }
+            default:
+                return value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats {count: " + count + ", missing: " + missing + ", min: " + min + ", max: " + max + ", mean: " + mean + ", std: " + getStandardDeviation() + "}";
+    }
+}
@@ -0,0 +1,93 @@
+package neuralnetwork.io;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+//one streaming pass over a CSV with a header row: each record is parsed straight into the table's columns and stats,
+//so no List<String[]> of the whole file is ever built
+//a field that isn't a number, or a record too short for the columns asked for, fails with an IOException naming the line and column
+public final class CsvIngestion {
+    //what an empty (or NaN) numeric field becomes; either way no NaN reaches the table
+    public enum MissingValues {
+        REJECT,     //IOException naming the line and column
+        IMPUTE_MEAN //the column's mean over every row ingested so far, once the table (or chunk) is complete; counted in ColumnStats.getMissing
+    }
+
+    private CsvIngestion() {}
+
+    //the whole file in one table, rejecting missing values
+    public static CsvTable read(Reader reader, int[] numericColumns, int[] textColumns) throws IOException {
+        return read(reader, numericColumns, textColumns, MissingValues.REJECT);
+    }
+
+    public static CsvTable read(Reader reader, int[] numericColumns, int[] textColumns, MissingValues missingValues) throws IOException {
+        CSVReader csvReader = new CSVReader(reader);
+        CsvTable table = new CsvTable(readHeader(csvReader), numericColumns, textColumns, missingValues, 256);
+
+        String[] row;
+        while ((row = readNext(csvReader)) != null) {
+            table.add(row, csvReader.getLinesRead());
+        }
+        table.imputeMissing();
+
+        return table;
+    }
+
+    //for files larger than the heap: the same table is refilled with up to chunkRows rows and handed to chunk each time
+    //its stats keep accumulating, so after the last chunk they describe the whole file; returns the total row count
+    //missing values are rejected
+    public static long readChunks(Reader reader, int[] numericColumns, int[] textColumns, int chunkRows, Consumer<CsvTable> chunk) throws IOException {
+        return readChunks(reader, numericColumns, textColumns, MissingValues.REJECT, chunkRows, chunk);
+    }
+
+    //IMPUTE_MEAN fills a chunk with the mean of the rows up to and including it, since later chunks aren't read yet
+    public static long readChunks(Reader reader, int[] numericColumns, int[] textColumns, MissingValues missingValues, int chunkRows,
+                                  Consumer<CsvTable> chunk) throws IOException {
+        if (chunkRows <= 0) {
+            throw new IllegalArgumentException("chunkRows must be positive");
+        }
+
+        CSVReader csvReader = new CSVReader(reader);
+        CsvTable table = new CsvTable(readHeader(csvReader), numericColumns, textColumns, missingValues, chunkRows);
+
+        long rows = 0;
+        String[] row;
+        while ((row = readNext(csvReader)) != null) {
+            table.add(row, csvReader.getLinesRead());
+            ++rows;
+            if (table.size() == chunkRows) {
+                table.imputeMissing();
+                chunk.accept(table);
+                table.clearRows();
+            }
+        }
+        if (table.size() > 0) {
+            table.imputeMissing();
+            chunk.accept(table);
+            table.clearRows();
+        }
+
+        return rows;
+    }
+
+    private static String[] readHeader(CSVReader csvReader) throws IOException {
+        String[] header = readNext(csvReader);
+        if (header == null) {
+            throw new IOException("CSV is empty");
+        }
+
+        return header;
+    }
+
+    private static String[] readNext(CSVReader csvReader) throws IOException {
+        try {
+            return csvReader.readNext();
+        } catch (CsvValidationException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package neuralnetwork.io;
+
+import neuralnetwork.training.Dataset;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+//columns picked out of a CSV by CsvIngestion: numeric ones parsed once into primitive arrays, text ones kept as strings
+//numeric column c lives in getNumeric(c)[0, size()); stats cover every row ingested so far, including earlier chunks
+public final class CsvTable {
+    private final String[] header;
+    private final int[] numericColumns, textColumns; //indices in the CSV
+    private final int fields; //a record needs at least this many
+    private final CsvIngestion.MissingValues missingValues;
+    private boolean hasMissing; //NaN placeholders in the current rows, until imputeMissing
+    private final double[][] numeric;
+    private final String[][] text;
+    private final ColumnStats[] stats;
+    private int size = 0;
+
+    CsvTable(String[] header, int[] numericColumns, int[] textColumns, CsvIngestion.MissingValues missingValues, int capacity) {
+        this.header = header;
+        this.numericColumns = numericColumns;
+        this.textColumns = textColumns;
+        this.missingValues = missingValues;
+        fields = Math.max(Arrays.stream(numericColumns).max().orElse(-1), Arrays.stream(textColumns).max().orElse(-1)) + 1;
+
+        numeric = new double[numericColumns.length][capacity];
+        text = new String[textColumns.length][capacity];
+        stats = new ColumnStats[numericColumns.length];
+        for (int c = 0; c < stats.length; c++) {
+            stats[c] = new ColumnStats();
+        }
+    }
+
+    public int size() { return size; }
+
+    public String[] getHeader() { return header; }
+
+    //c is the position in the numericColumns passed to CsvIngestion, not the CSV column index
+    public double[] getNumeric(int c) { return numeric[c]; }
+
+    public double getNumeric(int c, int row) {
+        checkRow(row);
+        return numeric[c][row];
+    }
+
+    public String getText(int c, int row) {
+        checkRow(row);
+        return text[c][row];
+    }
+
+    public ColumnStats getStats(int c) { return stats[c]; }
+
+    public int getCsvColumn(int c) { return numericColumns[c]; }
+
+    //numeric columns featureColumns -> features and targetColumns -> targets, scaled with each column's cached stats
+    public Dataset toDataset(int[] featureColumns, int[] targetColumns, ColumnStats.Scaling scaling) {
+        Dataset dataset = Dataset.allocate(size, featureColumns.length, targetColumns.length);
+        for (int i = 0; i < featureColumns.length; i++) {
+            int c = featureColumns[i];
+            for (int r = 0; r < size; r++) {
+                dataset.setX(r, i, stats[c].scale(numeric[c][r], scaling));
+            }
+        }
+        for (int i = 0; i < targetColumns.length; i++) {
+            int c = targetColumns[i];
+            for (int r = 0; r < size; r++) {
+                dataset.setY(r, i, numeric[c][r]);
+            }
+        }
+
+        return dataset;
+    }
+
+    //line is the CSV line the record ended on, for error messages
+    void add(String[] row, long line) throws IOException {
+        if (row.length < fields) {
+            throw new IOException("line " + line + ": expected at least " + fields + " fields, got " + row.length);
+        }
+
+        if (size == capacity()) {
+            int capacity = Math.max(16, 2 * size);
+            for (int c = 0; c < numeric.length; c++) {
+                numeric[c] = Arrays.copyOf(numeric[c], capacity);
+            }
+            for (int c = 0; c < text.length; c++) {
+                text[c] = Arrays.copyOf(text[c], capacity);
+            }
+        }
+
+        for (int c = 0; c < numericColumns.length; c++) {
+            String field = row[numericColumns[c]].trim();
+            double value;
+            try {
+                value = field.isEmpty() ? Double.NaN : Double.parseDouble(field);
+            } catch (NumberFormatException e) {
+                throw new IOException(location(line, c) + ": not a number: \"" + field + "\"", e);
+            }
+            if (Double.isNaN(value)) {
+                if (missingValues == CsvIngestion.MissingValues.REJECT) {
+                    throw new IOException(location(line, c) + ": missing value");
+                }
+                hasMissing = true;
+            }
+
+            numeric[c][size] = value;
+            stats[c].add(value);
+        }
+        for (int c = 0; c < textColumns.length; c++) {
+            text[c][size] = row[textColumns[c]];
+        }
+        ++size;
+    }
+
+    //replaces the NaN placeholders of IMPUTE_MEAN with the column means
+    void imputeMissing() {
+        if (!hasMissing) {
+            return;
+        }
+
+        for (int c = 0; c < numeric.length; c++) {
+            double mean = stats[c].getMean(); //0 for a column with no values at all
+            for (int r = 0; r < size; r++) {
+                if (Double.isNaN(numeric[c][r])) {
+                    numeric[c][r] = mean;
+                }
+            }
+        }
+        hasMissing = false;
+    }
+
+    void clearRows() { //keeps the arrays and the stats, for the next chunk
+        Arrays.stream(text).forEach((column) -> Arrays.fill(column, 0, size, null));
+        size = 0;
+    }
+
+    private String location(long line, int c) {
+        int column = numericColumns[c];
+        return "line " + line + ", column " + (column + 1) + ((column < header.length) ? " (" + header[column] + ")" : "");
+    }
+
+    private int capacity() {
+        return (numeric.length > 0) ? numeric[0].length : (text.length > 0) ? text[0].length : Integer.MAX_VALUE;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package neuralnetwork.io;
+
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.Precision;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.training.TrainingExample;
+import neuralnetwork.training.TrainingListener;
+import neuralnetwork.training.TrainingState;
+import neuralnetwork.training.TrainingStats;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Periodic training checkpoints written off the training thread.
+ * A checkpoint is a float64 Checkpoint file followed by a trailer (int magic "NNTS", int 0, long length, state bytes)
+ * holding the LearningAlgorithm's transferState, so Checkpoint.load reads it as a plain model and resume continues the run exactly.
+ * The training thread only copies parameters and state into one of two snapshot buffers; a single background thread
+ * writes the other to a temp file and renames it over the target, so a crash leaves the previous checkpoint intact.
+ * If a write is still running, the newest snapshot waits for it and anything older that hasn't started is dropped.
+ * Snapshots are only taken after completed steps: if training fails, queued ones are still written but no final one is taken,
+ * so the file always holds the last good state.
+ */
+public class TrainingCheckpointer implements TrainingListener, AutoCloseable {
+    public static final int STATE_MAGIC = 0x53544E4E; //"NNTS" in file order
+
+    private final Path path;
+    private final LearningAlgorithm learningAlgorithm;
+    private final int everyEpochs; //0 = no epoch trigger
+    private final long everyNanos; //0 = no time trigger
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Snapshot[] snapshots = {new Snapshot(), new Snapshot()};
+    private Snapshot writing, pending; //guarded by this
+    private boolean running;
+    private volatile IOException failure;
+
+    private int lastEpoch;
+    private long lastCheckpoint;
+    private long written = 0;
+
+    public TrainingCheckpointer(Path path, LearningAlgorithm learningAlgorithm, int everyEpochs, long everyMillis) {
+        if (everyEpochs < 0 || everyMillis < 0) {
+            throw new IllegalArgumentException("checkpoint intervals can't be negative");
+        }
+
+        this.path = path;
+        this.learningAlgorithm = learningAlgorithm;
+        this.everyEpochs = everyEpochs;
+        this.everyNanos = everyMillis * 1_000_000L;
+    }
+
+    //restores the network and the algorithm from a checkpoint written by this class and trains on from there
+    //learningAlgorithm must be configured like the one that wrote it and allTrainingExamples must be the same list
+    public static void resume(Path path, NeuralNetwork network, List<TrainingExample> allTrainingExamples, LearningAlgorithm learningAlgorithm) throws IOException {
+        Checkpoint.loadInto(path, network, false); //unmapped: the next checkpoint replaces this very file
+        learningAlgorithm.restoreState(readState(path));
+        network.train(allTrainingExamples, learningAlgorithm);
+    }
+
+    public static ByteBuffer readState(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = Checkpoint.modelLength(channel);
+            ByteBuffer trailer = Checkpoint.read(channel, position, 16);
+            if (trailer.getInt() != STATE_MAGIC) {
+                throw new IOException("checkpoint has no training state");
+            }
+
+            trailer.getInt();
+            return Checkpoint.read(channel, position + 16, Math.toIntExact(trailer.getLong()));
+        }
+    }
+
+    public long getCheckpointsWritten() {
+        synchronized (this) {
+            return written;
+        }
+    }
+
+    @Override
+    public void onTrainingStart(TrainingStats stats, NeuralNetwork network) {
+        lastEpoch = stats.getEpoch();
+        lastCheckpoint = System.nanoTime();
+    }
+
+    @Override
+    public void onBatch(TrainingStats stats, NeuralNetwork network) {
+        checkFailure();
+
+        long now = System.nanoTime();
+        boolean epochDue = everyEpochs > 0 && stats.isEndOfEpoch() && stats.getEpoch() - lastEpoch >= everyEpochs;
+        boolean timeDue = everyNanos > 0 && now - lastCheckpoint >= everyNanos;
+        if (epochDue || timeDue) {
+            lastEpoch = stats.getEpoch();
+            lastCheckpoint = now;
+            checkpoint(network);
+        }
+    }
+
+    //a last checkpoint of the finished run, waited for so the file is complete once train returns
+    @Override
+    public void onTrainingEnd(TrainingStats stats, NeuralNetwork network) {
+        checkpoint(network);
+        awaitWrites();
+        checkFailure();
+    }
+
+    //the queued snapshots predate the failure, so they're still good; write errors are suppressed into cause instead of masking it
+    @Override
+    public void onTrainingFailed(TrainingStats stats, NeuralNetwork network, Throwable cause) {
+        awaitWrites();
+        IOException e = failure;
+        if (e != null) {
+            failure = null;
+            cause.addSuppressed(e);
+        }
+    }
+
+    //snapshots now and queues the write; returns without touching the disk
+    public void checkpoint(NeuralNetwork network) {
+        synchronized (this) {
+            Snapshot target = (writing == snapshots[0]) ? snapshots[1] : snapshots[0]; //never the one being written
+            target.fill(network, learningAlgorithm);
+            pending = target;
+
+            if (!running) {
+                running = true;
+                writer.execute(this::drain);
+            }
+        }
+    }
+
+    public void awaitWrites() {
+        synchronized (this) {
+            while (running) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        awaitWrites();
+        writer.shutdown();
+    }
+
+    private void drain() {
+        while (true) {
+            Snapshot snapshot;
+            synchronized (this) {
+                writing = null;
+                if (pending == null) {
+                    running = false;
+                    notifyAll();
+                    return;
+                }
+
+                snapshot = writing = pending;
+                pending = null;
+            }
+
+            try {
+                snapshot.write(path);
+                synchronized (this) {
+                    ++written;
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            failure = null;
+            throw new UncheckedIOException("checkpoint to " + path + " failed", e);
+        }
+    }
+
+    private static final class Snapshot {
+        private ByteBuffer header;
+        private double[][] blocks = new double[0][];
+        private ByteBuffer state = ByteBuffer.allocate(256);
+        private final ByteBuffer trailer = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        private ByteBuffer blockBuffer; //only touched by the writer thread
+
+        //copies everything the write needs, reusing the arrays of the previous fill
+        void fill(NeuralNetwork network, LearningAlgorithm learningAlgorithm) {
+            Layer[] layers = new Layer[network.getNumLayers()];
+            for (int l = 0; l < layers.length; l++) {
+                layers[l] = network.getLayer(l);
+            }
+            header = Checkpoint.header(layers, Precision.FLOAT64);
+
+            if (blocks.length != 2 * layers.length) {
+                blocks = new double[2 * layers.length][];
+            }
+            for (int l = 0; l < layers.length; l++) {
+                blocks[2 * l] = copy(layers[l].getWeights().getDDRM().data, layers[l].getWeights().getNumElements(), blocks[2 * l]);
+                blocks[2 * l + 1] = copy(layers[l].getBiases().getDDRM().data, layers[l].getBiases().getNumElements(), blocks[2 * l + 1]);
+            }
+
+            TrainingState saved = TrainingState.saving(state);
+            learningAlgorithm.transferState(saved);
+            state = saved.getBuffer();
+        }
+
+        //the target is only replaced once the temp file is complete and forced to disk
+        void write(Path path) throws IOException {
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                writeTemp(temp);
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            }
+        }
+
+        private void writeTemp(Path temp) throws IOException {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                                                        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = this.header.duplicate();
+                while (header.hasRemaining()) {
+                    channel.write(header);
+                }
+
+                if (blockBuffer == null) {
+                    blockBuffer = Checkpoint.blockBuffer();
+                }
+                long position = header.limit();
+                for (double[] block : blocks) {
+                    position = Checkpoint.writeBlock(channel, position, block, Precision.FLOAT64, blockBuffer);
+                }
+
+                trailer.clear();
+                trailer.putInt(STATE_MAGIC).putInt(0).putLong(state.limit()).flip();
+                channel.position(position);
+                while (trailer.hasRemaining()) {
+                    channel.write(trailer);
+                }
+
+                ByteBuffer state = this.state.duplicate();
+                while (state.hasRemaining()) {
+                    channel.write(state);
+                }
+
+                channel.force(false);
+            }
+        }
+
+        private static double[] copy(double[] source, int length, double[] target) {
+            if (target == null || target.length != length) {
+                target = new double[length];
+            }
+
+            System.arraycopy(source, 0, target, 0, length);
+            return target;
+        }
+    }
+}
@@ -3,24 +3,23 @@ package neuralnetwork.loss;
 import neuralnetwork.Globals;
 import neuralnetwork.util.Operations;
 
-import java.util.function.DoubleUnaryOperator;
-
 public enum Loss {
     SquaredError((yhat, y) -> {
         double error = yhat - y;
         return (error*error);
     }, (yhat, y) -> (2.0 * (yhat - y))),
-    AbsoluteError((yhat, y) -> Math.abs(yhat - y)),
-    BinaryCrossentropy((yhat, y) -> ((y * -Math.log(yhat)) + ((1 - y) * -Math.log(1 - yhat))) ), // logistic loss
-    CategoricalCrossentropy((a_i, y_i) -> -Math.log(a_i)), //TODO: improve this
-    None((yhat, y) -> 0);
+    AbsoluteError((yhat, y) -> Math.abs(yhat - y), (yhat, y) -> Math.signum(yhat - y)),
+    BinaryCrossentropy((yhat, y) -> (crossentropyTerm(y, yhat) + crossentropyTerm(1 - y, 1 - yhat)), // logistic loss
+                       (yhat, y) -> {
+                           double p = clamp(yhat); //a saturated sigmoid rounds to exactly 0 or 1, where this is 0/0 or x/0
+                           return (p - y) / (p * (1 - p));
+                       }),
+    CategoricalCrossentropy((a_i, y_i) -> crossentropyTerm(y_i, a_i), (a_i, y_i) -> (y_i == 0.0) ? 0.0 : (-y_i / clamp(a_i))), //with Activation.Softmax the error is fused to a - y
+    None((yhat, y) -> 0, (yhat, y) -> 0);
 
-    private final LossFunction lossFunc, partialDerivative_yhat;
-    private Loss(LossFunction L) {
-        lossFunc = L;
-        partialDerivative_yhat = (yhat, y) -> Operations.derivative(lossFunc.fixedY(y), yhat, Globals.DERIVATIVE_SPECIFICITY);
-    }
+    private static final double EPSILON = 1e-12; //predicted probabilities are clamped to [EPSILON, 1 - EPSILON] by the cross-entropies
 
+    private final LossFunction lossFunc, partialDerivative_yhat;
     private Loss(LossFunction L, LossFunction d_dyhat$L) {
         lossFunc = L;
         partialDerivative_yhat = d_dyhat$L;
@@ -33,4 +32,18 @@ public enum Loss {
     public double applyPartialDerivative(double yhat, double y) {
         return partialDerivative_yhat.LOSS(yhat, y);
     }
+
+    //finite-difference derivative, for checking the closed forms above
+    public double numericPartialDerivative(double yhat, double y) {
+        return Operations.derivative(lossFunc.fixedY(y), yhat, Globals.DERIVATIVE_SPECIFICITY);
+    }
+
+    //-y * log(p), with a target of 0 contributing 0 even where p underflowed to 0 (0 * Infinity would be NaN)
+    private static double crossentropyTerm(double y, double p) {
+        return (y == 0.0) ? 0.0 : (y * -Math.log(clamp(p)));
+    }
+
+    private static double clamp(double p) {
+        return Math.min(Math.max(p, EPSILON), 1 - EPSILON);
+    }
 }
@@ -0,0 +1,159 @@
+package neuralnetwork.serving;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import neuralnetwork.NeuralNetwork;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Serves a network over HTTP on the loopback interface.
+ * POST /predict takes one sample per line as comma-separated features and answers with one line of comma-separated outputs each;
+ * every sample goes through a MicroBatcher, so concurrent requests share forward passes.
+ * GET /metrics answers with request and batch counts, throughput and server-side latency percentiles as JSON.
+ * Inference runs on a CompiledNetwork snapshot, so the network itself can keep training; publish swaps in a new snapshot.
+ */
+public class InferenceServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MicroBatcher batcher;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final long started = System.nanoTime();
+
+    //port 0 picks a free port; see getPort
+    public InferenceServer(NeuralNetwork network, int port, int maxBatchSize, long maxDelayMicros) throws IOException {
+        batcher = new MicroBatcher(network.compile(), maxBatchSize, maxDelayMicros);
+        executor = handlerExecutor();
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/predict", this::predict);
+        server.createContext("/metrics", this::metrics);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    public LatencyHistogram getLatency() { return latency; }
+
+    public MicroBatcher getBatcher() { return batcher; }
+
+    //serves network's current params from the next batch on
+    public void publish(NeuralNetwork network) {
+        batcher.setNetwork(network.compile());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        batcher.close();
+        executor.shutdown();
+    }
+
+    private void predict(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "use POST\n");
+                return;
+            }
+
+            List<CompletableFuture<double[]>> results = new ArrayList<>();
+            try {
+                for (String line : readBody(exchange.getRequestBody()).split("\n")) {
+                    line = line.trim();
+                    if (!line.isEmpty()) {
+                        results.add(batcher.submit(parseFeatures(line)));
+                    }
+                }
+            } catch (IllegalArgumentException e) { //includes NumberFormatException
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            try {
+                for (CompletableFuture<double[]> result : results) {
+                    double[] output = result.get();
+                    for (int i = 0; i < output.length; i++) {
+                        sb.append((i == 0) ? "" : ",").append(output[i]);
+                    }
+                    sb.append('\n');
+                }
+            } catch (ExecutionException e) { //the batcher closed under the request, or its batch failed
+                int status = (e.getCause() instanceof RejectedExecutionException) ? 503 : 500;
+                respond(exchange, status, e.getCause().getMessage() + "\n");
+                return;
+            }
+            respond(exchange, 200, sb.toString());
+            latency.record(System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void metrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            double seconds = (System.nanoTime() - started) / 1e9;
+            String json = "{\"requests\":" + latency.getCount()
+                    + ",\"samples\":" + batcher.getSamples()
+                    + ",\"batches\":" + batcher.getBatches()
+                    + ",\"meanBatchSize\":" + batcher.getMeanBatchSize()
+                    + ",\"requestsPerSecond\":" + (latency.getCount() / seconds)
+                    + ",\"samplesPerSecond\":" + (batcher.getSamples() / seconds)
+                    + ",\"latencyMicros\":{\"mean\":" + latency.getMeanMicros()
+                    + ",\"p50\":" + latency.percentileMicros(0.5)
+                    + ",\"p99\":" + latency.percentileMicros(0.99)
+                    + ",\"max\":" + latency.getMaxMicros() + "}}\n";
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            respond(exchange, 200, json);
+        }
+    }
+
+    private static double[] parseFeatures(String line) {
+        String[] fields = line.split(",");
+        double[] X = new double[fields.length];
+        for (int i = 0; i < X.length; i++) {
+            X[i] = Double.parseDouble(fields[i].trim());
+        }
+
+        return X;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    //a virtual thread per exchange where the JDK has them (21+), otherwise a cached pool of daemon threads
+    static ExecutorService handlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool((runnable) -> {
+                Thread thread = new Thread(runnable, "inference-handler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
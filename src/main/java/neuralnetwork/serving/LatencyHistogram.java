@@ -0,0 +1,86 @@
+package neuralnetwork.serving;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+//lock-free latency histogram in microseconds: exact below 16us, then 16 linear buckets per power of two (<= 6.25% error)
+//record is safe from any number of threads; percentiles read a consistent-enough snapshot without stopping writers
+public final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 16, SUB_BITS = 4;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder(), totalMicros = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.increment();
+        totalMicros.add(micros);
+        max.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public double getMeanMicros() {
+        long n = count.sum();
+        return (n == 0) ? 0.0 : (double) totalMicros.sum() / n;
+    }
+
+    public long getMaxMicros() { return max.get(); }
+
+    //smallest bucket bound with at least p (0, 1] of the samples at or below it
+    public long percentileMicros(double p) {
+        if (p <= 0.0 || p > 1.0) {
+            throw new IllegalArgumentException("percentile must be in (0, 1]");
+        }
+
+        long[] snapshot = new long[counts.length()];
+        long n = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            n += snapshot[b] = counts.get(b);
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(p * n), seen = 0;
+        for (int b = 0; b < snapshot.length; b++) {
+            seen += snapshot[b];
+            if (seen >= rank) {
+                return Math.min(upperBound(b), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    public void reset() {
+        for (int b = 0; b < counts.length(); b++) {
+            counts.set(b, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+        max.set(0);
+    }
+
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros); //>= SUB_BITS
+        int sub = (int) (micros >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1, sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,97 @@
+package neuralnetwork.serving;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+//closed-loop load generator for InferenceServer: each of concurrency clients sends one random sample per request,
+//waits for the answer and sends the next; reports client-side throughput and latency percentiles
+//usage: LoadTestClient <port> <input size> [concurrency] [requests per client]
+public class LoadTestClient {
+    public static final class Report {
+        public final long requests, errors;
+        public final double seconds;
+        public final LatencyHistogram latency;
+
+        Report(long requests, long errors, double seconds, LatencyHistogram latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.latency = latency;
+        }
+
+        public double getRequestsPerSecond() { return requests / seconds; }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests (%d errors) in %.2f s: %.0f req/s, latency p50 %d us, p99 %d us, max %d us",
+                    requests, errors, seconds, getRequestsPerSecond(),
+                    latency.percentileMicros(0.5), latency.percentileMicros(0.99), latency.getMaxMicros());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]), inputSize = Integer.parseInt(args[1]);
+        int concurrency = (args.length > 2) ? Integer.parseInt(args[2]) : 64;
+        int requests = (args.length > 3) ? Integer.parseInt(args[3]) : 1000;
+
+        System.out.println(run(URI.create("http://127.0.0.1:" + port + "/predict"), inputSize, concurrency, requests));
+    }
+
+    public static Report run(URI uri, int inputSize, int concurrency, int requestsPerClient) throws InterruptedException {
+        ExecutorService executor = InferenceServer.handlerExecutor();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build(); //HttpServer has no HTTP/2
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+
+        long start = System.nanoTime();
+        List<Future<?>> clients = new ArrayList<>();
+        for (int c = 0; c < concurrency; c++) {
+            long seed = c;
+            clients.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int r = 0; r < requestsPerClient; r++) {
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < inputSize; i++) {
+                        body.append((i == 0) ? "" : ",").append(random.nextDouble());
+                    }
+
+                    HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            errors.increment();
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        errors.increment();
+                        continue;
+                    }
+                    latency.record(System.nanoTime() - sent);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : clients) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                errors.increment();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        return new Report(latency.getCount(), errors.sum(), seconds, latency);
+    }
+}
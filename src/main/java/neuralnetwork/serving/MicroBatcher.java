@@ -0,0 +1,166 @@
+package neuralnetwork.serving;
+
+import neuralnetwork.CompiledNetwork;
+import neuralnetwork.ForwardWorkspace;
+import org.ejml.data.DMatrixRMaj;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//coalesces concurrent single-sample requests into one batched forward pass
+//a batch closes when it has maxBatchSize samples or maxDelayMicros after its first sample arrived, whichever comes first,
+//so an idle server adds no delay to a lone request beyond the window and a busy one runs full matrix-matrix products
+//one thread owns the workspace and does every forward pass; callers only wait on their future
+public class MicroBatcher implements AutoCloseable {
+    private static final class Request {
+        final double[] X;
+        final CompletableFuture<double[]> result = new CompletableFuture<>();
+
+        Request(double[] X) { this.X = X; }
+    }
+
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile CompiledNetwork network;
+    private volatile boolean running = true;
+
+    private final LongAdder samples = new LongAdder(), batches = new LongAdder();
+
+    public MicroBatcher(CompiledNetwork network, int maxBatchSize, long maxDelayMicros) {
+        if (maxBatchSize <= 0 || maxDelayMicros < 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive and maxDelayMicros can't be negative");
+        }
+
+        this.network = network;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelayMicros * 1000L;
+
+        thread = new Thread(this::loop, "micro-batcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    //the next batch runs on this snapshot; batches already running finish on the old one
+    public void setNetwork(CompiledNetwork network) {
+        this.network = network;
+    }
+
+    public CompiledNetwork getNetwork() { return network; }
+
+    public CompletableFuture<double[]> submit(double[] X) {
+        if (X.length != network.getInputSize()) {
+            throw new IllegalArgumentException("expected " + network.getInputSize() + " features, got " + X.length);
+        }
+
+        Request request = new Request(X);
+        if (!running) {
+            request.result.completeExceptionally(new RejectedExecutionException("batcher is closed"));
+            return request.result;
+        }
+
+        queue.add(request);
+        if (!running && queue.remove(request)) { //closed meanwhile and the batcher won't see it
+            request.result.completeExceptionally(new RejectedExecutionException("batcher is closed"));
+        }
+        return request.result;
+    }
+
+    public long getSamples() { return samples.sum(); }
+
+    public long getBatches() { return batches.sum(); }
+
+    public double getMeanBatchSize() {
+        long n = batches.sum();
+        return (n == 0) ? 0.0 : (double) samples.sum() / n;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.result.completeExceptionally(new RejectedExecutionException("batcher is closed"));
+        }
+    }
+
+    private void loop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        DMatrixRMaj X = new DMatrixRMaj(1, maxBatchSize);
+        CompiledNetwork workspaceOwner = null;
+        ForwardWorkspace workspace = null;
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                        continue;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    Request request = (remaining > 0) ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (request == null) {
+                        break;
+                    }
+                    batch.add(request);
+                }
+            } catch (InterruptedException e) {
+                if (batch.isEmpty()) {
+                    continue; //running is re-checked
+                }
+            }
+
+            CompiledNetwork network = this.network;
+            if (network != workspaceOwner) { //a new snapshot may have a different shape
+                workspaceOwner = network;
+                workspace = network.createWorkspace();
+            }
+
+            try {
+                run(network, batch, X, workspace);
+            } catch (RuntimeException e) {
+                batch.forEach((request) -> request.result.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void run(CompiledNetwork network, List<Request> batch, DMatrixRMaj X, ForwardWorkspace workspace) {
+        int n = batch.size(), inputSize = network.getInputSize(), outputSize = network.getOutputSize();
+        X.reshape(inputSize, n, false);
+        for (int j = 0; j < n; j++) {
+            double[] x = batch.get(j).X;
+            for (int i = 0; i < inputSize; i++) {
+                X.data[i * n + j] = x[i];
+            }
+        }
+
+        DMatrixRMaj a = network.predictBatch(X, workspace); //(outputSize x n)
+        for (int j = 0; j < n; j++) {
+            double[] output = new double[outputSize];
+            for (int i = 0; i < outputSize; i++) {
+                output[i] = a.data[i * n + j];
+            }
+            batch.get(j).result.complete(output);
+        }
+
+        samples.add(n);
+        batches.increment();
+    }
+}
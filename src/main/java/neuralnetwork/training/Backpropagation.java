@@ -0,0 +1,177 @@
+package neuralnetwork.training;
+
+import neuralnetwork.ForwardWorkspace;
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.loss.Loss;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+import java.util.List;
+
+//batched backpropagation: the training examples go through the network maxBatchSize at a time (one sample per column)
+//and each layer's gradient is accumulated as dW_l += error_l * A_(l-1)^T into one preallocated NetworkParams
+//not thread-safe: use one instance per thread
+//a Softmax + CategoricalCrossentropy output layer uses the fused error a - y, which needs every target to sum to 1 (e.g. one-hot)
+public class Backpropagation {
+    private final NeuralNetwork network;
+    private final int maxBatchSize;
+    private final ForwardWorkspace workspace;
+    private final DMatrixRMaj X, Y;   // batch inputs and targets, one sample per column
+    private final DMatrixRMaj[] errors; // error_l = dJ/dZ_l for each layer
+    private final double[][] zs;      // per-layer column scratch for activationsPrime
+    private final Loss[] losses;      // output layer loss per neuron
+    private final NetworkParams gradient;
+    private int count = 0;            // examples accumulated since the last zero()
+    private double loss = 0.0;        // summed training loss since the last zero(), a by-product of the output error
+
+    public Backpropagation(NeuralNetwork network, NetworkParams skeleton, int maxBatchSize) {
+        this.network = network;
+        this.maxBatchSize = maxBatchSize;
+
+        int numLayers = network.getNumLayers();
+        workspace = new ForwardWorkspace(network, maxBatchSize);
+        X = new DMatrixRMaj(network.getInputLayer().size(), maxBatchSize);
+        Y = new DMatrixRMaj(network.getOutputLayer().size(), maxBatchSize);
+
+        errors = new DMatrixRMaj[numLayers];
+        zs = new double[numLayers][];
+        for (int l = 0; l < numLayers; l++) {
+            int size = network.getLayer(l).size();
+            errors[l] = new DMatrixRMaj(size, maxBatchSize);
+            zs[l] = new double[2 * size];
+        }
+
+        losses = new Loss[network.getOutputLayer().size()];
+        gradient = skeleton.skeleton();
+    }
+
+    public NeuralNetwork getNetwork() { return network; }
+
+    public NetworkParams getGradient() { return gradient; } //sum of the per-example gradients since the last zero()
+
+    public int getCount() { return count; }
+
+    public double getLoss() { return loss; }
+
+    public void zero() {
+        gradient.zeroInPlace();
+        count = 0;
+        loss = 0.0;
+    }
+
+    public void accumulate(List<TrainingExample> trainingExamples) {
+        for (int from = 0, size = trainingExamples.size(); from < size; from += maxBatchSize) {
+            accumulate(trainingExamples, from, Math.min(from + maxBatchSize, size));
+        }
+    }
+
+    //adds the summed gradients of trainingExamples[from, to) to the gradient; to - from <= maxBatchSize
+    public void accumulate(List<TrainingExample> trainingExamples, int from, int to) {
+        loss += accumulate(trainingExamples, from, to, gradient);
+        count += to - from;
+    }
+
+    //same as above but accumulates into another gradient of the same shape, e.g. one owned by a parallel worker
+    //returns the summed training loss of the batch
+    public double accumulate(List<TrainingExample> trainingExamples, int from, int to, NetworkParams gradient) {
+        int n = to - from;
+        loadBatch(trainingExamples, from, n);
+
+        //PREDICTION
+        network.predictBatch(X, workspace);
+
+        //backpropagation
+        int L = network.getNumLayers() - 1;
+
+        Layer currentLayer = network.getOutputLayer();
+        DMatrixRMaj error = errors[L];
+        double batchLoss = baseError(currentLayer, workspace.getActivations(L), workspace.getZ(L), error);
+        addGradient(gradient, L, error, workspace.getActivations(L - 1));
+
+        for (int l = L - 1; l > 0; --l) {
+            DMatrixRMaj W_lplus1 = currentLayer.getWeights().getDDRM();
+            DMatrixRMaj error_lplus1 = error;
+
+            currentLayer = network.getLayer(l); // switch to current layer
+            error = errors[l];
+            error.reshape(error.numRows, n, false);
+
+            DMatrixRMaj activationsPrime = workspace.getZ(l); // overwritten in place, no longer needed after this layer
+            currentLayer.activationsPrime(activationsPrime, activationsPrime, zs[l]);
+
+            CommonOps_DDRM.multTransA(W_lplus1, error_lplus1, error); // propagate backwards
+            CommonOps_DDRM.elementMult(error, activationsPrime);
+
+            addGradient(gradient, l, error, workspace.getActivations(l - 1));
+        }
+
+        return batchLoss;
+    }
+
+    private void loadBatch(List<TrainingExample> trainingExamples, int from, int n) {
+        if (trainingExamples instanceof Dataset.View) { //straight from the columns
+            ((Dataset.View) trainingExamples).load(from, from + n, X, Y);
+            return;
+        }
+
+        X.reshape(X.numRows, n, false);
+        Y.reshape(Y.numRows, n, false);
+
+        for (int j = 0; j < n; j++) {
+            TrainingExample trainingExample = trainingExamples.get(from + j);
+            for (int i = 0; i < X.numRows; i++) {
+                X.data[i * n + j] = trainingExample.X[i];
+            }
+            for (int i = 0; i < Y.numRows; i++) {
+                Y.data[i * n + j] = trainingExample.Y.get(i);
+            }
+        }
+    }
+
+    //error_L = dJ/dA_L * dA_L/dZ_L, elementwise over the batch; returns the batch's summed loss
+    private double baseError(Layer outputLayer, DMatrixRMaj predictedActivations, DMatrixRMaj z, DMatrixRMaj error) {
+        int n = z.numCols;
+        error.reshape(error.numRows, n, false);
+
+        for (int i = 0; i < losses.length; i++) {
+            losses[i] = outputLayer.get(i).getLossFunction();
+        }
+
+        double batchLoss = 0.0;
+        if (outputLayer.isSoftmaxCrossentropy()) { // fused: dJ/dZ = a - y, no Jacobian needed; assumes each column of Y sums to 1
+            CommonOps_DDRM.subtract(predictedActivations, Y, error);
+            for (int k = 0, length = error.getNumElements(); k < length; k++) {
+                batchLoss += Loss.CategoricalCrossentropy.apply(predictedActivations.data[k], Y.data[k]);
+            }
+
+            return batchLoss;
+        }
+
+        outputLayer.activationsPrime(z, error, zs[zs.length - 1]);
+
+        for (int i = 0; i < losses.length; i++) {
+            Loss loss = losses[i];
+            for (int j = 0, k = i * n; j < n; j++, k++) {
+                error.data[k] *= loss.applyPartialDerivative(predictedActivations.data[k], Y.data[k]); //with respect to predictedActivations
+                batchLoss += loss.apply(predictedActivations.data[k], Y.data[k]);
+            }
+        }
+
+        return batchLoss;
+    }
+
+    private static void addGradient(NetworkParams gradient, int l, DMatrixRMaj error, DMatrixRMaj prevActivations) {
+        CommonOps_DDRM.multAddTransB(error, prevActivations, gradient.TW.get(l).getDDRM()); // gradJ$W_l += error_l * A_(l-1)^T
+
+        double[] b = gradient.Tb.get(l).getDDRM().data; // gradJ$b_l += error_l summed over the batch
+        int n = error.numCols;
+        for (int i = 0; i < error.numRows; i++) {
+            double sum = 0.0;
+            for (int j = 0, k = i * n; j < n; j++, k++) {
+                sum += error.data[k];
+            }
+            b[i] += sum;
+        }
+    }
+}
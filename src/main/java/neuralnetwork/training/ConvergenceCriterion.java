@@ -0,0 +1,73 @@
+package neuralnetwork.training;
+
+import neuralnetwork.NeuralNetwork;
+
+import java.util.List;
+
+//checked once after every learnStep; plug into any LearningAlgorithm with stopWhen
+//criteria may keep state across steps, so use a fresh instance per training run
+@FunctionalInterface
+public interface ConvergenceCriterion {
+    public boolean hasConverged(TrainingStats stats, NeuralNetwork network);
+
+    public static ConvergenceCriterion maxEpochs(int epochs) {
+        return (stats, network) -> stats.getEpoch() >= epochs;
+    }
+
+    public static ConvergenceCriterion gradientL1Below(double threshold) {
+        return (stats, network) -> stats.getSteps() > 0 && stats.getGradientL1() <= threshold;
+    }
+
+    public static ConvergenceCriterion gradientL2Below(double threshold) {
+        return (stats, network) -> stats.getSteps() > 0 && stats.getGradientL2() <= threshold;
+    }
+
+    //stops once the epoch's training loss hasn't improved on the best by more than minDelta for patience epochs
+    public static ConvergenceCriterion lossPlateau(double minDelta, int patience) {
+        return new ConvergenceCriterion() {
+            private double best = Double.POSITIVE_INFINITY;
+            private int epochsWithoutImprovement = 0;
+
+            @Override
+            public boolean hasConverged(TrainingStats stats, NeuralNetwork network) {
+                if (!stats.isEndOfEpoch()) {
+                    return false;
+                }
+
+                if (stats.getEpochLoss() < best - minDelta) {
+                    best = stats.getEpochLoss();
+                    epochsWithoutImprovement = 0;
+                } else {
+                    ++epochsWithoutImprovement;
+                }
+
+                return epochsWithoutImprovement >= patience;
+            }
+        };
+    }
+
+    //early stopping: same as lossPlateau but on held-out examples, evaluated once per epoch
+    public static ConvergenceCriterion validationLoss(List<TrainingExample> validationExamples, double minDelta, int patience) {
+        return new ConvergenceCriterion() {
+            private double best = Double.POSITIVE_INFINITY;
+            private int epochsWithoutImprovement = 0;
+
+            @Override
+            public boolean hasConverged(TrainingStats stats, NeuralNetwork network) {
+                if (!stats.isEndOfEpoch()) {
+                    return false;
+                }
+
+                double cost = network.cost(validationExamples);
+                if (cost < best - minDelta) {
+                    best = cost;
+                    epochsWithoutImprovement = 0;
+                } else {
+                    ++epochsWithoutImprovement;
+                }
+
+                return epochsWithoutImprovement >= patience;
+            }
+        };
+    }
+}
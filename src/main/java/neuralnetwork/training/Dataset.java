@@ -0,0 +1,233 @@
+package neuralnetwork.training;
+
+import neuralnetwork.util.Operations;
+import org.ejml.data.DMatrixRMaj;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+//training examples stored column by column: feature i of every row is one contiguous run, and so is target i
+//the runs live in a heap double[] or, for large sets, an off-heap direct buffer (up to 2^31 - 1 bytes per side)
+//a contiguous batch of rows loads into a (features x batch) matrix with one bulk copy per feature
+public final class Dataset {
+    private final int size, inputSize, outputSize;
+    private final DoubleBuffer X, Y; //X[i * size + r] is feature i of row r, Y likewise
+    private final double[] heapX, heapY; //backing arrays of X and Y when on heap, else null
+
+    private Dataset(int size, int inputSize, int outputSize, DoubleBuffer X, DoubleBuffer Y) {
+        this.size = size;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.X = X;
+        this.Y = Y;
+        heapX = X.hasArray() ? X.array() : null;
+        heapY = Y.hasArray() ? Y.array() : null;
+    }
+
+    //zero-filled, on the heap
+    public static Dataset allocate(int size, int inputSize, int outputSize) {
+        return new Dataset(size, inputSize, outputSize, DoubleBuffer.allocate(Math.multiplyExact(size, inputSize)),
+                           DoubleBuffer.allocate(Math.multiplyExact(size, outputSize)));
+    }
+
+    //zero-filled, outside the Java heap: no GC scanning or copying, freed when the Dataset is collected
+    public static Dataset allocateDirect(int size, int inputSize, int outputSize) {
+        return new Dataset(size, inputSize, outputSize, direct(Math.multiplyExact(size, inputSize)), direct(Math.multiplyExact(size, outputSize)));
+    }
+
+    //copies the examples into columns; this is how the List<TrainingExample> API feeds training
+    public static Dataset of(List<TrainingExample> trainingExamples) {
+        if (trainingExamples instanceof View && ((View) trainingExamples).isWhole()) {
+            return ((View) trainingExamples).getDataset();
+        }
+
+        int size = trainingExamples.size();
+        int inputSize = (size > 0) ? trainingExamples.get(0).X.length : 0;
+        int outputSize = (size > 0) ? trainingExamples.get(0).Y.getNumElements() : 0;
+
+        Dataset dataset = allocate(size, inputSize, outputSize);
+        for (int r = 0; r < size; r++) {
+            dataset.set(r, trainingExamples.get(r));
+        }
+
+        return dataset;
+    }
+
+    public int size() { return size; }
+
+    public int getInputSize() { return inputSize; }
+
+    public int getOutputSize() { return outputSize; }
+
+    public boolean isDirect() { return X.isDirect(); }
+
+    public double getX(int row, int i) {
+        return X.get(index(row, i, inputSize));
+    }
+
+    public double getY(int row, int i) {
+        return Y.get(index(row, i, outputSize));
+    }
+
+    public void setX(int row, int i, double value) {
+        X.put(index(row, i, inputSize), value);
+    }
+
+    public void setY(int row, int i, double value) {
+        Y.put(index(row, i, outputSize), value);
+    }
+
+    public void set(int row, double[] features, double[] targets) {
+        for (int i = 0; i < inputSize; i++) {
+            setX(row, i, features[i]);
+        }
+        for (int i = 0; i < outputSize; i++) {
+            setY(row, i, targets[i]);
+        }
+    }
+
+    public void set(int row, TrainingExample trainingExample) {
+        if (trainingExample.X.length != inputSize || trainingExample.Y.getNumElements() != outputSize) {
+            throw new IllegalArgumentException("example " + row + " doesn't have " + inputSize + " features and " + outputSize + " targets");
+        }
+
+        for (int i = 0; i < inputSize; i++) {
+            setX(row, i, trainingExample.X[i]);
+        }
+        for (int i = 0; i < outputSize; i++) {
+            setY(row, i, trainingExample.Y.get(i));
+        }
+    }
+
+    //feature i of every row, without copying; writes go through to the dataset
+    public DoubleBuffer featureColumn(int i) {
+        return X.slice(i * size, size);
+    }
+
+    public DoubleBuffer targetColumn(int i) {
+        return Y.slice(i * size, size);
+    }
+
+    //every row as a List<TrainingExample>, for the existing API
+    public View rows() {
+        return new View(this, null, 0, size);
+    }
+
+    public View rows(int from, int to) {
+        checkRange(from, to, size);
+        return new View(this, null, from, to);
+    }
+
+    //rows order[from], ..., order[to - 1]; order is read, not copied
+    public View rows(int[] order, int from, int to) {
+        checkRange(from, to, order.length);
+        return new View(this, order, from, to);
+    }
+
+    //a List view of (possibly reordered) rows; get(i) materializes a TrainingExample copy for callers that need one,
+    //while Backpropagation loads views straight from the columns with load()
+    public static final class View extends AbstractList<TrainingExample> implements RandomAccess {
+        private final Dataset dataset;
+        private int[] order; //row r of the view is order[from + r], or from + r when null
+        private int from, to;
+
+        private View(Dataset dataset, int[] order, int from, int to) {
+            this.dataset = dataset;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+        public Dataset getDataset() { return dataset; }
+
+        public int row(int index) { //dataset row of view index
+            return (order == null) ? from + index : order[from + index];
+        }
+
+        @Override
+        public TrainingExample get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+
+            int r = row(index);
+            double[] features = new double[dataset.inputSize], targets = new double[dataset.outputSize];
+            for (int i = 0; i < features.length; i++) {
+                features[i] = dataset.getX(r, i);
+            }
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = dataset.getY(r, i);
+            }
+
+            return new TrainingExample(features, Operations.colVector(targets));
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        //rows [start, end) of the view into X (features x n) and Y (targets x n), one sample per column
+        public void load(int start, int end, DMatrixRMaj X, DMatrixRMaj Y) {
+            int n = end - start;
+            X.reshape(dataset.inputSize, n, false);
+            Y.reshape(dataset.outputSize, n, false);
+
+            load(dataset.X, dataset.heapX, start, n, X.data, dataset.inputSize);
+            load(dataset.Y, dataset.heapY, start, n, Y.data, dataset.outputSize);
+        }
+
+        private void load(DoubleBuffer column, double[] heap, int start, int n, double[] batch, int rows) {
+            int size = dataset.size;
+            if (order == null) { //contiguous rows: one bulk copy per feature
+                for (int i = 0; i < rows; i++) {
+                    column.get(i * size + from + start, batch, i * n, n);
+                }
+            } else if (heap != null) {
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0, base = i * size, k = from + start; j < n; j++, k++) {
+                        batch[i * n + j] = heap[base + order[k]];
+                    }
+                }
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0, base = i * size, k = from + start; j < n; j++, k++) {
+                        batch[i * n + j] = column.get(base + order[k]);
+                    }
+                }
+            }
+        }
+
+        boolean isWhole() {
+            return order == null && from == 0 && to == dataset.size;
+        }
+
+        void set(int[] order, int from, int to) { //reuses the view for the next mini-batch
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private int index(int row, int i, int width) {
+        if (row < 0 || row >= size || i < 0 || i >= width) {
+            throw new IndexOutOfBoundsException("(" + row + ", " + i + ") is outside of " + size + " x " + width);
+        }
+
+        return i * size + row;
+    }
+
+    private static void checkRange(int from, int to, int length) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("[" + from + ", " + to + ") is outside of [0, " + length + ")");
+        }
+    }
+
+    private static DoubleBuffer direct(int length) {
+        return ByteBuffer.allocateDirect(Math.multiplyExact(length, Double.BYTES)).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+}
@@ -1,108 +1,313 @@
 package neuralnetwork.training;
 
-import math.Tensor;
-import neuralnetwork.Layer;
 import neuralnetwork.NeuralNetwork;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
 import neuralnetwork.util.Mechanics;
 import neuralnetwork.util.Operations;
 import org.ejml.simple.SimpleMatrix;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public abstract class LearningAlgorithm {
-    protected final List<TrainingExample> trainingExamples = new ArrayList<>();
+    protected Dataset dataset;
+    protected List<TrainingExample> trainingExamples; //every row of dataset, as a view
     protected NetworkParams skel;
+    private Backpropagation backpropagation;
+
+    //data-parallel gradient computation; null pool = sequential
+    private ForkJoinPool pool;
+    private int ownedParallelism; //> 0: parallel(int) made the pool, which lives from the first parallel gradient to trainingFinished
+    private int grainSize;
+    private ThreadLocal<Backpropagation> workerBackpropagation;
+    private NetworkParams[] partitionGradients = new NetworkParams[0];
+    private double[] partitionLosses = new double[0];
+
+    protected final TrainingStats stats = new TrainingStats();
+    private final List<ConvergenceCriterion> criteria = new ArrayList<>();
+    private final List<TrainingListener> listeners = new ArrayList<>();
+    private boolean stopped = false;
+    private ByteBuffer pendingState; //restored when training starts, after init has allocated everything
+
+    public static final int BACKPROP_BATCH_SIZE = 256; //examples pushed through the network per matrix-matrix pass
 
     public LearningAlgorithm() {}
 
     public LearningAlgorithm init(List<TrainingExample> allTrainingExamples, NetworkParams skeleton) {
-        trainingExamples.addAll(allTrainingExamples);
+        return init(Dataset.of(allTrainingExamples), skeleton);
+    }
+
+    //subclasses allocating per-run state override this one
+    public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+        this.dataset = dataset;
+        trainingExamples = dataset.rows();
         skel = skeleton;
+        stats.reset();
+        stopped = false;
+        return this;
+    }
+
+    //extra stopping rules on top of doesConverge(), checked after every step
+    public LearningAlgorithm stopWhen(ConvergenceCriterion... criteria) {
+        this.criteria.addAll(Arrays.asList(criteria));
+        return this;
+    }
+
+    //notified after every step and every epoch; nothing is printed unless a listener does it
+    public LearningAlgorithm addListener(TrainingListener... listeners) {
+        this.listeners.addAll(Arrays.asList(listeners));
+        return this;
+    }
+
+    public TrainingStats getStats() { return stats; }
+
+    public int getEpoch() { return stats.getEpoch(); }
+
+    //whether the last step completed an epoch; every step is a full epoch unless overridden
+    protected boolean isEndOfEpoch() {
+        return true;
+    }
+
+    //doesConverge() or any stopWhen criterion
+    public boolean shouldStop() {
+        return stopped || doesConverge();
+    }
+
+    //splits each gradient computation into partitions of grainSize examples computed on pool and summed with a fixed
+    //pairwise tree, so results are deterministic for a given grainSize regardless of thread scheduling
+    //the caller owns pool and shuts it down
+    public LearningAlgorithm parallel(ForkJoinPool pool, int grainSize) {
+        if (grainSize <= 0) {
+            throw new IllegalArgumentException("grainSize must be positive");
+        }
+
+        shutdownOwnedPool();
+        ownedParallelism = 0;
+        this.pool = pool;
+        this.grainSize = grainSize;
+        workerBackpropagation = new ThreadLocal<>();
+
+        return this;
+    }
+
+    //on a pool of this many threads that's shut down when training finishes
+    public LearningAlgorithm parallel(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+
+        parallel(null, BACKPROP_BATCH_SIZE);
+        ownedParallelism = parallelism;
         return this;
     }
 
     public NetworkParams learnStep(NeuralNetwork network, NetworkParams currentParams) {
-        return learnStep(network, currentParams, shuffleData());
+        long start = System.nanoTime();
+        NetworkParams next = learnStep(network, currentParams, shuffleData());
+        if (next != currentParams) { //returned new params instead of updating in place; listeners should see the network after the step
+            network.setNetworkParams(next);
+        }
+
+        stats.finishStep(isEndOfEpoch(), System.nanoTime() - start);
+        for (ConvergenceCriterion criterion : criteria) {
+            stopped |= criterion.hasConverged(stats, network);
+        }
+
+        for (TrainingListener listener : listeners) {
+            listener.onBatch(stats, network);
+            if (stats.isEndOfEpoch()) {
+                listener.onEpoch(stats, network);
+            }
+        }
+
+        return next;
+    }
+
+    //called by NeuralNetwork.train around the step loop
+    public void trainingStarted(NeuralNetwork network) {
+        if (pendingState != null) {
+            transferState(TrainingState.restoring(pendingState));
+            pendingState = null;
+        }
+
+        for (TrainingListener listener : listeners) {
+            listener.onTrainingStart(stats, network);
+        }
+    }
+
+    public void trainingFinished(NeuralNetwork network) {
+        shutdownOwnedPool();
+        for (TrainingListener listener : listeners) {
+            listener.onTrainingEnd(stats, network);
+        }
+    }
+
+    //instead of trainingFinished when a step threw cause; listeners' own exceptions are suppressed into cause so they can't mask it
+    public void trainingFailed(NeuralNetwork network, Throwable cause) {
+        shutdownOwnedPool();
+        for (TrainingListener listener : listeners) {
+            try {
+                listener.onTrainingFailed(stats, network, cause);
+            } catch (RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+        }
+    }
+
+    private void shutdownOwnedPool() { //the next parallel gradient makes a new one
+        if (ownedParallelism > 0 && pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    //counters, rng and optimizer buffers needed to continue a run exactly; overrides must call super first
+    //stopWhen criteria (and whether one has fired) are not part of it, they start fresh on resume
+    public void transferState(TrainingState state) {
+        stats.transferState(state);
+    }
+
+    //state from transferState to restore once the next train() has called init
+    public LearningAlgorithm restoreState(ByteBuffer state) {
+        pendingState = state;
+        return this;
     }
 
     public abstract List<TrainingExample> shuffleData();
 
+    //may update currentParams in place and return them; NeuralNetwork.train passes a view of the network's own storage
     protected abstract NetworkParams learnStep(NeuralNetwork network, NetworkParams currentParams, List<TrainingExample> trainingExamples);
 
     public abstract boolean doesConverge();
 
+    //average gradient over trainingExamples; the returned params are reused (overwritten) by the next call
+    //also records the step's loss and gradient norms in getStats()
     public NetworkParams calculateGradient(NeuralNetwork neuralNetwork, List<TrainingExample> trainingExamples) {
-        NetworkParams gradient = skel.skeleton();
-
-        for (int i = 0; i < trainingExamples.size(); i++) {
-            NetworkParams grad_i = backpropagation(trainingExamples.get(i), neuralNetwork);
-
-            //System.err.println("GRADIENT (" + i + "):\n" + grad_i);
-            gradient = gradient.plus(grad_i); //sum gradients of each training example
+        NetworkParams gradient;
+        double loss;
+        if (pool == null && ownedParallelism > 0) {
+            pool = new ForkJoinPool(ownedParallelism);
+        }
+        if (pool != null && trainingExamples.size() > grainSize) {
+            gradient = parallelGradientSum(neuralNetwork, trainingExamples);
+            loss = partitionLosses[0];
+        } else {
+            if (backpropagation == null || backpropagation.getNetwork() != neuralNetwork) {
+                backpropagation = new Backpropagation(neuralNetwork, skel, BACKPROP_BATCH_SIZE);
+            }
 
-            //System.err.println("Training Example i = " + i + " -> GRADIENT:\n" + gradient);
+            backpropagation.zero();
+            backpropagation.accumulate(trainingExamples); //sum gradients of each training example
+            gradient = backpropagation.getGradient();
+            loss = backpropagation.getLoss();
         }
 
-        gradient = gradient.divide(trainingExamples.size()); //take the average
+        //take the average, with the norms as a by-product of the same pass
+        int n = trainingExamples.size();
+        double l1 = 0.0, l2 = 0.0;
+        for (int k = 0, blocks = gradient.blocks(); k < blocks; k++) {
+            double[] g = gradient.block(k);
+            for (int i = 0, size = gradient.blockSize(k); i < size; i++) {
+                double g_i = g[i] / n;
+                g[i] = g_i;
+                l1 += Math.abs(g_i);
+                l2 += g_i * g_i;
+            }
+        }
+        stats.recordGradient(loss / n, l1, Math.sqrt(l2), n);
 
-        System.err.println("FINAL GRADIENT: " + gradient);
         return gradient;
     }
 
-    private NetworkParams backpropagation(TrainingExample trainingExample, NeuralNetwork neuralNetwork) {
-        NetworkParams gradients = skel.skeleton();
-        Tensor allActivations = neuralNetwork.predictWithAllStats(trainingExample.X); //PREDICTION
+    private NetworkParams parallelGradientSum(NeuralNetwork neuralNetwork, List<TrainingExample> trainingExamples) {
+        int partitions = (trainingExamples.size() + grainSize - 1) / grainSize;
+        if (partitionGradients.length < partitions) {
+            NetworkParams[] grown = Arrays.copyOf(partitionGradients, partitions);
+            for (int p = partitionGradients.length; p < partitions; p++) {
+                grown[p] = skel.skeleton();
+            }
+            partitionGradients = grown;
+            partitionLosses = new double[partitions];
+        }
 
-        //System.err.println("PREDICTED FROM " + trainingExample.toString());
+        pool.invoke(new GradientTask(neuralNetwork, trainingExamples, 0, partitions));
+        return partitionGradients[0];
+    }
 
-        //backpropagation
-        int L = neuralNetwork.getNumLayers() - 1;
+    //sums the gradients (and losses) of partitions [lo, hi) into partitionGradients[lo] (and partitionLosses[lo])
+    private class GradientTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-        Layer currentLayer = neuralNetwork.getLayer(L);
-        SimpleMatrix prevActivations_L = allActivations.get(L - 1);
+        private final NeuralNetwork neuralNetwork;
+        private final List<TrainingExample> trainingExamples;
+        private final int lo, hi;
 
-        SimpleMatrix error = baseError(   // error_L
-                allActivations.getLast(), // predicted activations
-                trainingExample.Y,        // actual activations
-                currentLayer.Z(prevActivations_L),
-                currentLayer.getActualMechanics()
-        );
-        gradients.set(L,
-                Operations.plotMatrix(prevActivations_L, error),   // TW
-                error.copy()                                       // Tb
-        );
+        GradientTask(NeuralNetwork neuralNetwork, List<TrainingExample> trainingExamples, int lo, int hi) {
+            this.neuralNetwork = neuralNetwork;
+            this.trainingExamples = trainingExamples;
+            this.lo = lo;
+            this.hi = hi;
+        }
 
-        SimpleMatrix W_lplus1 = currentLayer.getWeights();
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                NetworkParams gradient = partitionGradients[lo].zeroInPlace();
 
-        for (int l = L - 1; l > 0; --l) {
-            currentLayer = neuralNetwork.getLayer(l); // switch to current layer
-            SimpleMatrix prevActivations_l = allActivations.get(l - 1);
-            SimpleMatrix activationsPrime = currentLayer.activationsPrime(prevActivations_l);
+                Backpropagation backprop = workerBackpropagation.get();
+                if (backprop == null || backprop.getNetwork() != neuralNetwork) {
+                    backprop = new Backpropagation(neuralNetwork, skel, Math.min(grainSize, BACKPROP_BATCH_SIZE));
+                    workerBackpropagation.set(backprop);
+                }
 
-            error = (W_lplus1.transpose().mult(error)).elementMult(activationsPrime); // propagate backwards
-            SimpleMatrix gradJ$W_l = Operations.plotMatrix(prevActivations_l, error);
+                double loss = 0.0;
+                int end = Math.min((lo + 1) * grainSize, trainingExamples.size());
+                for (int from = lo * grainSize; from < end; from += BACKPROP_BATCH_SIZE) {
+                    loss += backprop.accumulate(trainingExamples, from, Math.min(from + BACKPROP_BATCH_SIZE, end), gradient);
+                }
+                partitionLosses[lo] = loss;
+                return;
+            }
 
-            gradients.set(l,
-                    gradJ$W_l,   // TW
-                    error.copy() // Tb: gradJ$b_l = error_l
-            );
+            int mid = (lo + hi) >>> 1;
+            GradientTask left = new GradientTask(neuralNetwork, trainingExamples, lo, mid);
+            left.fork();
+            new GradientTask(neuralNetwork, trainingExamples, mid, hi).compute();
+            left.join();
 
-            W_lplus1 = currentLayer.getWeights();
+            partitionGradients[lo].addInPlace(partitionGradients[mid]); //tree reduction
+            partitionLosses[lo] += partitionLosses[mid];
         }
-
-        return gradients;
     }
 
     //gradient of loss with respect to activations multiplied by primed activations
     public static SimpleMatrix baseError(SimpleMatrix predictedActivations, SimpleMatrix actualActivations, SimpleMatrix z, List<Mechanics> mechsList) {
+        if (isSoftmaxCrossentropy(mechsList)) { // fused softmax + cross-entropy gradient
+            return predictedActivations.minus(actualActivations);
+        }
+
         double[] error = new double[mechsList.size()];
         double[] zs = Operations.toArray(z);
+        double[] primes = null; // vector dA/dZ, computed once for multi-input activations
         for (int i = 0; i < error.length; i++) {
             Mechanics funcs = mechsList.get(i);
 
             double delJ_delAhat = funcs.loss.applyPartialDerivative(predictedActivations.get(i), actualActivations.get(i)); //actualActivations is fixed because this is with respect to predictedActivations
-            double delA_delZ = funcs.activation.autoApplyPartialDerivative(zs, i);
+            double delA_delZ;
+            if (funcs.activation.isMultiInput()) {
+                if (primes == null) {
+                    primes = zs.clone();
+                    funcs.activation.applyPartialDerivativeInPlace(primes, 0, primes.length);
+                }
+                delA_delZ = primes[i];
+            } else {
+                delA_delZ = funcs.activation.applyPartialDerivative(zs[i]);
+            }
 
             error[i] = delJ_delAhat * delA_delZ; // delJ_delZ
         }
@@ -110,60 +315,229 @@ public abstract class LearningAlgorithm {
         return Operations.colVector(error);
     }
 
+    //softmax outputs with categorical cross-entropy loss: dJ/dZ = a - y exactly
+    static boolean isSoftmaxCrossentropy(List<Mechanics> mechsList) {
+        for (Mechanics mechs : mechsList) {
+            if (mechs.activation != Activation.Softmax || mechs.loss != Loss.CategoricalCrossentropy) {
+                return false;
+            }
+        }
+
+        return !mechsList.isEmpty();
+    }
+
     //Learning Algorithm Presets
     public static LearningAlgorithm BatchGradientDescent(double learningRate, int epochs) { //why do we need multiple epochs? gradient descent steps don't completely go towards the minimum, only taking smaller
         return new LearningAlgorithm() {
             private int i = 0;
 
             @Override
-            public List<TrainingExample> shuffleData() {
-                return new ArrayList<>(trainingExamples);
+            public List<TrainingExample> shuffleData() { //order doesn't matter for a full-batch gradient
+                return trainingExamples;
             }
 
             @Override
             protected NetworkParams learnStep(NeuralNetwork network, NetworkParams currentParams, List<TrainingExample> data) {
                 NetworkParams gradient = calculateGradient(network, data);
-                NetworkParams next = currentParams.minus(gradient.scale(learningRate));
+                currentParams.axpy(-learningRate, gradient); // theta -= learningRate * gradient, in place
 
                 ++i; //1 batch = 1 epoch in BGD
-                return next;
+                return currentParams;
             }
 
             @Override
             public boolean doesConverge() {
                 return i >= epochs;
             }
+
+            @Override
+            public void transferState(TrainingState state) {
+                super.transferState(state);
+                i = state.value(i);
+            }
         };
     }
 
     public static LearningAlgorithm BatchGradientDescent(double learningRate, double convergenceThreshold) { //keeps going until convergence
         return new LearningAlgorithm() {
-            private NetworkParams gradient;
-            private double total;
-
             @Override
-            public List<TrainingExample> shuffleData() {
-                return new ArrayList<>(trainingExamples);
+            public List<TrainingExample> shuffleData() { //order doesn't matter for a full-batch gradient
+                return trainingExamples;
             }
 
             @Override
             protected NetworkParams learnStep(NeuralNetwork network, NetworkParams currentParams, List<TrainingExample> data) {
-                gradient = calculateGradient(network, data);
-                return currentParams.minus(gradient.scale(learningRate));
+                NetworkParams gradient = calculateGradient(network, data);
+                return currentParams.axpy(-learningRate, gradient);
             }
 
-            private void addAbs(double theta) { total += Math.abs(theta); }
+            @Override
+            public boolean doesConverge() { //L1 norm of the gradient, computed while it was averaged
+                return stats.getSteps() > 0 && stats.getGradientL1() <= convergenceThreshold;
+            }
+        };
+    }
 
+    public static LearningAlgorithm MiniBatchGradientDescent(double learningRate, int batchSize, int epochs, long seed) { //many cheap steps per epoch
+        return new MiniBatchLearningAlgorithm(batchSize, epochs, seed) {
             @Override
-            public boolean doesConverge() {
-                if (gradient == null) {
-                    return false;
+            protected void update(NetworkParams params, NetworkParams gradient) {
+                params.axpy(-learningRate, gradient);
+            }
+        };
+    }
+
+    public static LearningAlgorithm MiniBatchGradientDescent(double learningRate, int batchSize, int epochs) {
+        return MiniBatchGradientDescent(learningRate, batchSize, epochs, System.nanoTime());
+    }
+
+    public static LearningAlgorithm StochasticGradientDescent(double learningRate, int epochs, long seed) { //1 example per step
+        return MiniBatchGradientDescent(learningRate, 1, epochs, seed);
+    }
+
+    public static LearningAlgorithm StochasticGradientDescent(double learningRate, int epochs) {
+        return StochasticGradientDescent(learningRate, epochs, System.nanoTime());
+    }
+
+    //Optimizers: mini-batch steps whose state lives in skeleton-shaped buffers allocated once in init
+    //and updated together with the params in a single fused loop per block
+
+    public static final double EPSILON = 1e-8; //keeps adaptive step sizes finite
+
+    public static LearningAlgorithm Momentum(double learningRate, double momentum, int batchSize, int epochs, long seed) {
+        return new MiniBatchLearningAlgorithm(batchSize, epochs, seed) {
+            private NetworkParams velocity;
+
+            @Override
+            public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+                velocity = skeleton.skeleton();
+                return super.init(dataset, skeleton);
+            }
+
+            @Override
+            public void transferState(TrainingState state) {
+                super.transferState(state);
+                state.params(velocity);
+            }
+
+            @Override
+            protected void update(NetworkParams params, NetworkParams gradient) {
+                for (int k = 0, blocks = params.blocks(); k < blocks; k++) {
+                    double[] theta = params.block(k), g = gradient.block(k), v = velocity.block(k);
+                    for (int i = 0, n = params.blockSize(k); i < n; i++) {
+                        v[i] = momentum * v[i] - learningRate * g[i];
+                        theta[i] += v[i];
+                    }
                 }
+            }
+        };
+    }
+
+    public static LearningAlgorithm Nesterov(double learningRate, double momentum, int batchSize, int epochs, long seed) {
+        return new MiniBatchLearningAlgorithm(batchSize, epochs, seed) {
+            private NetworkParams velocity;
 
-                total = 0.0;
-                gradient.forEach(this::addAbs);
+            @Override
+            public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+                velocity = skeleton.skeleton();
+                return super.init(dataset, skeleton);
+            }
 
-                return total <= convergenceThreshold;
+            @Override
+            public void transferState(TrainingState state) {
+                super.transferState(state);
+                state.params(velocity);
+            }
+
+            @Override
+            protected void update(NetworkParams params, NetworkParams gradient) { //look-ahead form: the gradient is taken at theta
+                for (int k = 0, blocks = params.blocks(); k < blocks; k++) {
+                    double[] theta = params.block(k), g = gradient.block(k), v = velocity.block(k);
+                    for (int i = 0, n = params.blockSize(k); i < n; i++) {
+                        double prev = v[i];
+                        v[i] = momentum * v[i] - learningRate * g[i];
+                        theta[i] += -momentum * prev + (1 + momentum) * v[i];
+                    }
+                }
+            }
+        };
+    }
+
+    public static LearningAlgorithm RMSProp(double learningRate, double decay, int batchSize, int epochs, long seed) {
+        return new MiniBatchLearningAlgorithm(batchSize, epochs, seed) {
+            private NetworkParams meanSquare;
+
+            @Override
+            public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+                meanSquare = skeleton.skeleton();
+                return super.init(dataset, skeleton);
+            }
+
+            @Override
+            public void transferState(TrainingState state) {
+                super.transferState(state);
+                state.params(meanSquare);
+            }
+
+            @Override
+            protected void update(NetworkParams params, NetworkParams gradient) {
+                for (int k = 0, blocks = params.blocks(); k < blocks; k++) {
+                    double[] theta = params.block(k), g = gradient.block(k), s = meanSquare.block(k);
+                    for (int i = 0, n = params.blockSize(k); i < n; i++) {
+                        s[i] = decay * s[i] + (1 - decay) * g[i] * g[i];
+                        theta[i] -= learningRate * g[i] / (Math.sqrt(s[i]) + EPSILON);
+                    }
+                }
+            }
+        };
+    }
+
+    public static LearningAlgorithm Adam(double learningRate, double beta1, double beta2, int batchSize, int epochs, long seed) {
+        return AdamW(learningRate, beta1, beta2, 0.0, batchSize, epochs, seed);
+    }
+
+    public static LearningAlgorithm Adam(double learningRate, int batchSize, int epochs, long seed) {
+        return Adam(learningRate, 0.9, 0.999, batchSize, epochs, seed);
+    }
+
+    //Adam with decoupled weight decay, applied to weights but not biases
+    public static LearningAlgorithm AdamW(double learningRate, double beta1, double beta2, double weightDecay, int batchSize, int epochs, long seed) {
+        return new MiniBatchLearningAlgorithm(batchSize, epochs, seed) {
+            private NetworkParams m, v; //first and second moments
+            private int t = 0;
+
+            @Override
+            public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+                m = skeleton.skeleton();
+                v = skeleton.skeleton();
+                t = 0;
+                return super.init(dataset, skeleton);
+            }
+
+            @Override
+            public void transferState(TrainingState state) {
+                super.transferState(state);
+                state.params(m);
+                state.params(v);
+                t = state.value(t);
+            }
+
+            @Override
+            protected void update(NetworkParams params, NetworkParams gradient) {
+                ++t;
+                double correction1 = 1 - Math.pow(beta1, t), correction2 = 1 - Math.pow(beta2, t); //bias corrections
+
+                for (int k = 0, blocks = params.blocks(); k < blocks; k++) {
+                    double[] theta = params.block(k), g = gradient.block(k), m_k = m.block(k), v_k = v.block(k);
+                    double decay = NetworkParams.isWeightBlock(k) ? weightDecay : 0.0;
+                    for (int i = 0, n = params.blockSize(k); i < n; i++) {
+                        m_k[i] = beta1 * m_k[i] + (1 - beta1) * g[i];
+                        v_k[i] = beta2 * v_k[i] + (1 - beta2) * g[i] * g[i];
+
+                        double mhat = m_k[i] / correction1, vhat = v_k[i] / correction2;
+                        theta[i] -= learningRate * (mhat / (Math.sqrt(vhat) + EPSILON) + decay * theta[i]);
+                    }
+                }
             }
         };
     }
@@ -218,5 +592,5 @@ public abstract class LearningAlgorithm {
         }
     }*/
 
-    //TODO: add stochastic gradient descent, adam algorithm, and least squares
+    //TODO: add least squares
 }
@@ -0,0 +1,107 @@
+package neuralnetwork.training;
+
+import neuralnetwork.NeuralNetwork;
+
+import java.util.List;
+
+//one learnStep per mini-batch; every epoch reshuffles an index array in place and walks it batchSize at a time
+//batches are views over the dataset's rows, nothing is copied
+public abstract class MiniBatchLearningAlgorithm extends LearningAlgorithm {
+    protected final int batchSize, epochs;
+    private long rngState; //SplitMix64 state, so a fixed seed gives a fixed sequence of batches
+    private int[] order = new int[0];
+    private int cursor = 0; //start of the next batch in order
+    private boolean endOfEpoch = false;
+    private Dataset.View batch; //reused for every mini-batch
+
+    protected MiniBatchLearningAlgorithm(int batchSize, int epochs, long seed) {
+        if (batchSize <= 0) { //the cursor would never advance and train would never return
+            throw new IllegalArgumentException("batchSize must be positive, got " + batchSize);
+        }
+
+        this.batchSize = batchSize;
+        this.epochs = epochs;
+        rngState = seed;
+    }
+
+    @Override
+    public LearningAlgorithm init(Dataset dataset, NetworkParams skeleton) {
+        if (dataset.size() == 0) {
+            throw new IllegalArgumentException("can't train on an empty dataset");
+        }
+        super.init(dataset, skeleton);
+
+        order = new int[dataset.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        cursor = 0;
+        endOfEpoch = false;
+        batch = dataset.rows(order, 0, 0);
+        shuffle();
+
+        return this;
+    }
+
+    //applies one optimizer update to params in place
+    protected abstract void update(NetworkParams params, NetworkParams gradient);
+
+    @Override
+    public List<TrainingExample> shuffleData() { //the next mini-batch
+        batch.set(order, cursor, Math.min(cursor + batchSize, order.length));
+        return batch;
+    }
+
+    @Override
+    protected NetworkParams learnStep(NeuralNetwork network, NetworkParams currentParams, List<TrainingExample> data) {
+        NetworkParams gradient = calculateGradient(network, data);
+        update(currentParams, gradient);
+
+        cursor += data.size();
+        endOfEpoch = cursor >= order.length;
+        if (endOfEpoch) {
+            cursor = 0;
+            shuffle();
+        }
+
+        return currentParams;
+    }
+
+    @Override
+    protected boolean isEndOfEpoch() {
+        return endOfEpoch;
+    }
+
+    @Override
+    public boolean doesConverge() {
+        return getEpoch() >= epochs;
+    }
+
+    @Override
+    public void transferState(TrainingState state) {
+        super.transferState(state);
+        rngState = state.value(rngState);
+        state.array(order);
+        cursor = state.value(cursor);
+        endOfEpoch = state.value(endOfEpoch);
+    }
+
+    //in-place Fisher-Yates
+    private void shuffle() {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+    }
+
+    private int nextInt(int bound) {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+
+        return (int) (((z >>> 32) * bound) >>> 32); //uniform in [0, bound)
+    }
+}
@@ -54,6 +54,57 @@ public class NetworkParams {
         return new NetworkParams(TW_2, Tb_2);
     }
 
+    //in-place variants: no new Tensors or matrices
+
+    public NetworkParams addInPlace(NetworkParams other) {
+        TW.addInPlace(other.TW);
+        Tb.addInPlace(other.Tb);
+        return this;
+    }
+
+    public NetworkParams axpy(double alpha, NetworkParams x) { // this += alpha * x
+        TW.axpy(alpha, x.TW);
+        Tb.axpy(alpha, x.Tb);
+        return this;
+    }
+
+    public NetworkParams scaleInPlace(double scalar) {
+        TW.scaleInPlace(scalar);
+        Tb.scaleInPlace(scalar);
+        return this;
+    }
+
+    public NetworkParams divideInPlace(double val) {
+        TW.divideInPlace(val);
+        Tb.divideInPlace(val);
+        return this;
+    }
+
+    public NetworkParams zeroInPlace() {
+        TW.zeroInPlace();
+        Tb.zeroInPlace();
+        return this;
+    }
+
+    public NetworkParams setTo(NetworkParams other) {
+        TW.setTo(other.TW);
+        Tb.setTo(other.Tb);
+        return this;
+    }
+
+    //the params as 2 * layers() flat blocks (W_0, b_0, W_1, b_1, ...), for fused loops over every parameter
+    public int blocks() { return 2 * layers(); }
+
+    public double[] block(int k) {
+        return (k % 2 == 0) ? TW.data(k / 2) : Tb.data(k / 2);
+    }
+
+    public int blockSize(int k) {
+        return (k % 2 == 0) ? TW.size(k / 2) : Tb.size(k / 2);
+    }
+
+    public static boolean isWeightBlock(int k) { return k % 2 == 0; }
+
     public void set(NetworkParams np) {
         TW.set(np.TW);
         Tb.set(np.Tb);
@@ -0,0 +1,125 @@
+package neuralnetwork.training;
+
+import neuralnetwork.NeuralNetwork;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+//training events; stats is the algorithm's own instance, updated in place, so copy out anything kept across calls
+//listeners run on the training thread between steps, so they should stay cheap
+public interface TrainingListener {
+    public default void onTrainingStart(TrainingStats stats, NeuralNetwork network) {}
+
+    public default void onBatch(TrainingStats stats, NeuralNetwork network) {} //after every learnStep
+
+    public default void onEpoch(TrainingStats stats, NeuralNetwork network) {} //after the step that completed an epoch
+
+    public default void onTrainingEnd(TrainingStats stats, NeuralNetwork network) {} //only when training completed normally
+
+    //instead of onTrainingEnd when a step threw cause; the network may be half updated, so don't persist it
+    public default void onTrainingFailed(TrainingStats stats, NeuralNetwork network, Throwable cause) {}
+
+    //one line per epoch, at most once every intervalMillis (plus the final epoch)
+    public static TrainingListener logging(PrintStream out, long intervalMillis) {
+        return new TrainingListener() {
+            private long lastLog = Long.MIN_VALUE;
+            private int lastEpoch = -1;
+
+            @Override
+            public void onTrainingStart(TrainingStats stats, NeuralNetwork network) {
+                lastLog = Long.MIN_VALUE;
+                lastEpoch = -1;
+            }
+
+            @Override
+            public void onEpoch(TrainingStats stats, NeuralNetwork network) {
+                long now = System.nanoTime();
+                if (lastLog != Long.MIN_VALUE && now - lastLog < intervalMillis * 1_000_000L) {
+                    return;
+                }
+
+                lastLog = now;
+                log(stats);
+            }
+
+            @Override
+            public void onTrainingEnd(TrainingStats stats, NeuralNetwork network) {
+                if (stats.getEpoch() != lastEpoch) {
+                    log(stats);
+                }
+            }
+
+            private void log(TrainingStats stats) {
+                lastEpoch = stats.getEpoch();
+                out.printf("epoch %d: loss %.6g, |gradient| %.4g, %.1f ms, %.0f examples/s%n",
+                        stats.getEpoch(), stats.getEpochLoss(), stats.getGradientL2(), stats.getEpochNanos() / 1e6, stats.getEpochExamplesPerSecond());
+            }
+        };
+    }
+
+    //comma-separated metrics, one row per epoch (or per step if perBatch); flushed when training ends or fails, closing is up to the caller
+    public static TrainingListener csv(Writer out, boolean perBatch) {
+        return new TrainingListener() {
+            private final StringBuilder row = new StringBuilder();
+
+            @Override
+            public void onTrainingStart(TrainingStats stats, NeuralNetwork network) {
+                write("step,epoch,loss,gradient_l1,gradient_l2,step_ns,examples_per_second\n");
+            }
+
+            @Override
+            public void onBatch(TrainingStats stats, NeuralNetwork network) {
+                if (perBatch) {
+                    writeRow(stats, stats.getLoss(), stats.getStepNanos(), stats.getExamplesPerSecond());
+                }
+            }
+
+            @Override
+            public void onEpoch(TrainingStats stats, NeuralNetwork network) {
+                if (!perBatch) {
+                    writeRow(stats, stats.getEpochLoss(), stats.getEpochNanos(), stats.getEpochExamplesPerSecond());
+                }
+            }
+
+            @Override
+            public void onTrainingEnd(TrainingStats stats, NeuralNetwork network) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public void onTrainingFailed(TrainingStats stats, NeuralNetwork network, Throwable cause) {
+                try {
+                    out.flush(); //the rows up to the failure are the interesting ones
+                } catch (IOException e) {
+                    cause.addSuppressed(e);
+                }
+            }
+
+            private void writeRow(TrainingStats stats, double loss, long nanos, double examplesPerSecond) {
+                row.setLength(0);
+                row.append(stats.getSteps()).append(',')
+                   .append(stats.getEpoch()).append(',')
+                   .append(loss).append(',')
+                   .append(stats.getGradientL1()).append(',')
+                   .append(stats.getGradientL2()).append(',')
+                   .append(nanos).append(',')
+                   .append(examplesPerSecond).append('\n');
+                write(row);
+            }
+
+            private void write(CharSequence text) {
+                try {
+                    out.append(text);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+}
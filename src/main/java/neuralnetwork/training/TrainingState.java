@@ -0,0 +1,121 @@
+package neuralnetwork.training;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+//a LearningAlgorithm's resumable state as one little-endian byte run
+//transferState visits every field in a fixed order: when saving each call appends the value and returns it unchanged,
+//when restoring each call returns the saved value (arrays are filled in place), so one method covers both directions
+public final class TrainingState {
+    private ByteBuffer buffer;
+    private final boolean restoring;
+
+    private TrainingState(ByteBuffer buffer, boolean restoring) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.restoring = restoring;
+    }
+
+    //appends into buffer (cleared first), growing it if needed; getBuffer() returns the result
+    public static TrainingState saving(ByteBuffer buffer) {
+        buffer.clear();
+        return new TrainingState(buffer, false);
+    }
+
+    public static TrainingState restoring(ByteBuffer buffer) {
+        return new TrainingState(buffer.duplicate(), true);
+    }
+
+    public boolean isRestoring() {
+        return restoring;
+    }
+
+    //the written state, flipped and ready to read
+    public ByteBuffer getBuffer() {
+        ByteBuffer written = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        written.flip();
+        return written;
+    }
+
+    public long value(long value) {
+        if (restoring) {
+            return buffer.getLong();
+        }
+
+        ensureRemaining(Long.BYTES).putLong(value);
+        return value;
+    }
+
+    public int value(int value) {
+        if (restoring) {
+            return buffer.getInt();
+        }
+
+        ensureRemaining(Integer.BYTES).putInt(value);
+        return value;
+    }
+
+    public double value(double value) {
+        if (restoring) {
+            return buffer.getDouble();
+        }
+
+        ensureRemaining(Double.BYTES).putDouble(value);
+        return value;
+    }
+
+    public boolean value(boolean value) {
+        return value(value ? 1 : 0) != 0;
+    }
+
+    //length-prefixed; restoring into an array of a different length fails
+    public void array(double[] array) {
+        array(array, array.length);
+    }
+
+    //the first length values of array
+    public void array(double[] array, int length) {
+        int saved = value(length);
+        if (saved != length) {
+            throw new IllegalArgumentException("saved state has " + saved + " values, expected " + length);
+        }
+
+        if (restoring) {
+            buffer.asDoubleBuffer().get(array, 0, length);
+        } else {
+            ensureRemaining((long) length * Double.BYTES).asDoubleBuffer().put(array, 0, length);
+        }
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+
+    public void array(int[] array) {
+        int length = value(array.length);
+        if (length != array.length) {
+            throw new IllegalArgumentException("saved state has " + length + " values, expected " + array.length);
+        }
+
+        if (restoring) {
+            buffer.asIntBuffer().get(array);
+        } else {
+            ensureRemaining((long) array.length * Integer.BYTES).asIntBuffer().put(array);
+        }
+        buffer.position(buffer.position() + array.length * Integer.BYTES);
+    }
+
+    public void params(NetworkParams params) {
+        for (int k = 0, blocks = params.blocks(); k < blocks; k++) {
+            array(params.block(k), params.blockSize(k));
+        }
+    }
+
+    private ByteBuffer ensureRemaining(long bytes) {
+        if (buffer.remaining() < bytes) {
+            long capacity = Math.max(2L * buffer.capacity(), buffer.position() + bytes);
+            ByteBuffer grown = ByteBuffer.allocate(Math.toIntExact(capacity)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+
+        return buffer;
+    }
+}
@@ -0,0 +1,93 @@
+package neuralnetwork.training;
+
+//per-step numbers gathered while the gradient is accumulated, so convergence checks don't need another pass
+//one instance per LearningAlgorithm, updated in place every step
+public class TrainingStats {
+    private double loss, gradientL1, gradientL2;
+    private int examples;
+    private long steps;
+    private int epoch;
+    private boolean endOfEpoch;
+    private double epochLoss = Double.NaN, epochLossSum;
+    private int epochExamples, epochExamplesLast;
+    private long stepNanos, epochNanos, epochNanosSum;
+
+    public double getLoss() { return loss; } //mean training loss over the last step's examples
+
+    public double getGradientL1() { return gradientL1; }
+
+    public double getGradientL2() { return gradientL2; }
+
+    public int getExamples() { return examples; } //examples in the last step
+
+    public long getSteps() { return steps; }
+
+    public int getEpoch() { return epoch; } //completed epochs
+
+    public boolean isEndOfEpoch() { return endOfEpoch; } //the last step completed an epoch
+
+    public double getEpochLoss() { return epochLoss; } //mean training loss over the last completed epoch
+
+    public long getStepNanos() { return stepNanos; } //wall time of the last step
+
+    public long getEpochNanos() { return epochNanos; } //wall time of the last completed epoch
+
+    public double getExamplesPerSecond() {
+        return stepNanos > 0 ? examples * 1e9 / stepNanos : 0.0;
+    }
+
+    public double getEpochExamplesPerSecond() { //over the last completed epoch
+        return epochNanos > 0 ? epochExamplesLast * 1e9 / epochNanos : 0.0;
+    }
+
+    void recordGradient(double loss, double gradientL1, double gradientL2, int examples) {
+        this.loss = loss;
+        this.gradientL1 = gradientL1;
+        this.gradientL2 = gradientL2;
+        this.examples = examples;
+    }
+
+    void finishStep(boolean endOfEpoch, long stepNanos) {
+        ++steps;
+        this.stepNanos = stepNanos;
+        epochLossSum += loss * examples;
+        epochExamples += examples;
+        epochNanosSum += stepNanos;
+
+        this.endOfEpoch = endOfEpoch;
+        if (endOfEpoch) {
+            ++epoch;
+            epochLoss = epochLossSum / epochExamples;
+            epochNanos = epochNanosSum;
+            epochExamplesLast = epochExamples;
+            epochLossSum = 0.0;
+            epochExamples = 0;
+            epochNanosSum = 0;
+        }
+    }
+
+    void transferState(TrainingState state) {
+        loss = state.value(loss);
+        gradientL1 = state.value(gradientL1);
+        gradientL2 = state.value(gradientL2);
+        examples = state.value(examples);
+        steps = state.value(steps);
+        epoch = state.value(epoch);
+        endOfEpoch = state.value(endOfEpoch);
+        epochLoss = state.value(epochLoss);
+        epochLossSum = state.value(epochLossSum);
+        epochExamples = state.value(epochExamples);
+        epochExamplesLast = state.value(epochExamplesLast);
+        stepNanos = state.value(stepNanos);
+        epochNanos = state.value(epochNanos);
+        epochNanosSum = state.value(epochNanosSum);
+    }
+
+    void reset() {
+        loss = gradientL1 = gradientL2 = epochLossSum = 0.0;
+        epochLoss = Double.NaN;
+        examples = epochExamples = epochExamplesLast = epoch = 0;
+        steps = stepNanos = epochNanos = epochNanosSum = 0;
+        endOfEpoch = false;
+    }
+}
@@ -0,0 +1,38 @@
+package example;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountryEvaluationTest {
+    private final CountryEvaluation evaluation = new CountryEvaluation(); //reads res/data, relative to the project directory
+
+    @Test
+    void rowsBeforeAMalformedLineAreWritten() {
+        StringWriter out = new StringWriter();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> evaluation.predictAll(new StringReader("Japan\n\n1, 2\nFrance\n"), out, CountryEvaluation.OutputFormat.CSV, 256));
+
+        assertEquals("line 3: expected 5 comma-separated features, got 2", e.getMessage());
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length, out.toString());
+        assertTrue(lines[1].startsWith("\"Japan\","), lines[1]);
+    }
+
+    @Test
+    void featureLinesAreValidated() {
+        assertMessage("1,2,3,4,x\n", "line 1, feature 5: not a number: \"x\"");
+        assertMessage("1,2,3,4,5,6\n", "line 1: expected 5 comma-separated features, got more");
+    }
+
+    private void assertMessage(String input, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> evaluation.predictAll(new StringReader(input), new StringWriter(), CountryEvaluation.OutputFormat.JSON, 4));
+        assertEquals(message, e.getMessage());
+    }
+}
@@ -0,0 +1,67 @@
+package neuralnetwork;
+
+import neuralnetwork.activation.Activation;
+import neuralnetwork.util.MechIndex;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Float32NetworkTest {
+    private static final double TOLERANCE = 1e-5; //float rounding of W, b and every z, over a few layers
+
+    private static NeuralNetwork network(Activation hidden, Activation output) {
+        return TestNetworks.network(11, 0.2, new int[]{32, 64, 64, 8}, TestNetworks.hidden(hidden), TestNetworks.hidden(hidden),
+                TestNetworks.hidden(output));
+    }
+
+    @Test
+    void floatKernelsMatchFloat64() {
+        Activation[] activations = {Activation.ReLU, Activation.Sigmoid, Activation.tanh, Activation.Linear};
+        for (Activation hidden : activations) {
+            assertMatches(network(hidden, Activation.Softmax), name(hidden) + " + softmax");
+            assertMatches(network(hidden, Activation.Sigmoid), name(hidden) + " + sigmoid");
+        }
+    }
+
+    //a softmax run sharing its layer, and a custom activation, go through the widened double kernels
+    @Test
+    void widenedLayersMatchFloat64() {
+        NeuralNetwork network = network(Activation.ReLU, Activation.Softmax);
+        network.getLayer(3).setMechanics(new MechIndex(0, TestNetworks.hidden(Activation.Linear)));
+        assertMatches(network, "mixed softmax layer");
+
+        Activation softplus = new Activation((z) -> Math.log1p(Math.exp(z)));
+        assertMatches(network(softplus, Activation.Linear), "custom activation");
+    }
+
+    @Test
+    void rejectsWrongInputSize() {
+        Float32Network single = (Float32Network) network(Activation.ReLU, Activation.Softmax).compile(Precision.FLOAT32);
+        assertThrows(IllegalArgumentException.class, () -> single.predict(new double[31]));
+        assertThrows(IllegalArgumentException.class, () -> single.predict(new float[33], new float[8]));
+        assertThrows(IllegalArgumentException.class, () -> single.predictBatch(new double[][]{new double[32], new double[31]}));
+    }
+
+    private static void assertMatches(NeuralNetwork network, String name) {
+        double[][] X = TestNetworks.inputs(5, 17, 32);
+        double[][] expected = network.compile().predictBatch(X);
+        Predictor single = network.compile(Precision.FLOAT32);
+        double[][] batch = single.predictBatch(X);
+
+        for (int j = 0; j < X.length; j++) {
+            double[] one = single.predict(X[j]);
+            for (int i = 0; i < expected[j].length; i++) {
+                assertEquals(expected[j][i], batch[j][i], TOLERANCE, name + ": sample " + j + ", output " + i);
+                assertEquals(batch[j][i], one[i], TOLERANCE, name + ": batch vs single, sample " + j + ", output " + i);
+            }
+        }
+    }
+
+    private static String name(Activation activation) {
+        if (activation == Activation.ReLU) return "relu";
+        if (activation == Activation.Sigmoid) return "sigmoid";
+        if (activation == Activation.tanh) return "tanh";
+        return "linear";
+    }
+}
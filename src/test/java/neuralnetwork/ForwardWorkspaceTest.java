@@ -0,0 +1,40 @@
+package neuralnetwork;
+
+import com.sun.management.ThreadMXBean;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ForwardWorkspaceTest {
+    @Test
+    void predictWithWorkspaceDoesNotAllocate() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        NeuralNetwork network = TestNetworks.network(1, 0.5, new int[]{8, 32, 32, 4}, TestNetworks.hidden(Activation.Sigmoid),
+                TestNetworks.hidden(Activation.ReLU), TestNetworks.output(Activation.Softmax, Loss.CategoricalCrossentropy));
+        ForwardWorkspace workspace = network.createWorkspace();
+        double[] X = {0.1, 0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8};
+
+        for (int i = 0; i < 20_000; i++) { //warm up so the JIT is done compiling the loop
+            network.predict(X, workspace);
+        }
+
+        long thread = Thread.currentThread().getId();
+        int calls = 10_000;
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < calls; i++) {
+            network.predict(X, workspace);
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+        //any allocation per call is at least 16 bytes; a few bytes in total are the JVM's own (deoptimization, OSR), not predict's
+        assertTrue(allocated < calls, allocated + " bytes allocated over " + calls + " calls");
+    }
+}
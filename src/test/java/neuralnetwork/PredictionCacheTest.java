@@ -0,0 +1,81 @@
+package neuralnetwork;
+
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.LearningAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PredictionCacheTest {
+    private static NeuralNetwork network() {
+        return TestNetworks.network(5, 0.5, new int[]{3, 6, 2}, TestNetworks.hidden(Activation.tanh),
+                TestNetworks.output(Activation.Sigmoid, Loss.SquaredError));
+    }
+
+    @Test
+    void repeatedInputHits() {
+        NeuralNetwork network = network();
+        PredictionCache cache = new PredictionCache(network, 4);
+        double[] X = {0.1, 0.2, 0.3};
+
+        double[] first = cache.predict(X), second = cache.predict(X.clone());
+        assertArrayEquals(network.compile().predict(X), first, 0.0);
+        assertArrayEquals(first, second, 0.0);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+    }
+
+    //the least recently used entry goes first: touching X[0] makes X[1] the eldest
+    @Test
+    void evictsLeastRecentlyUsed() {
+        PredictionCache cache = new PredictionCache(network(), 3);
+        double[][] X = TestNetworks.inputs(6, 4, 3);
+        cache.predict(X[0]);
+        cache.predict(X[1]);
+        cache.predict(X[2]);
+        cache.predict(X[0]);
+        cache.predict(X[3]);
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        cache.predict(X[0]);
+        assertEquals(2, cache.getHits());
+        cache.predict(X[1]);
+        assertEquals(5, cache.getMisses());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    void setNetworkParamsInvalidates() {
+        NeuralNetwork network = network();
+        PredictionCache cache = new PredictionCache(network, 4);
+        double[] X = {0.1, 0.2, 0.3};
+        double[] before = cache.predict(X);
+
+        network.setNetworkParams(network.getNetworkParams().applyEntrywise((theta) -> 2 * theta), 1);
+        double[] after = cache.predict(X);
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getInvalidations());
+        assertArrayEquals(network.compile().predict(X), after, 0.0);
+        assertFalse(before[0] == after[0] && before[1] == after[1], "stale output served");
+    }
+
+    @Test
+    void trainInvalidates() {
+        NeuralNetwork network = network();
+        PredictionCache cache = new PredictionCache(network, 4);
+        double[] X = {0.1, 0.2, 0.3};
+        cache.predict(X);
+
+        network.train(TestNetworks.examples(5, 20, 3, 2, false), LearningAlgorithm.BatchGradientDescent(0.5, 2));
+        double[] after = cache.predict(X);
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getInvalidations());
+        assertArrayEquals(network.compile().predict(X), after, 0.0);
+    }
+}
@@ -0,0 +1,54 @@
+package neuralnetwork;
+
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.TrainingExample;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantizedNetworkTest {
+    private static NeuralNetwork network() {
+        return TestNetworks.network(13, 0.3, new int[]{16, 32, 32, 4}, TestNetworks.hidden(Activation.ReLU),
+                TestNetworks.hidden(Activation.tanh), TestNetworks.output(Activation.Softmax, Loss.CategoricalCrossentropy));
+    }
+
+    //calibrated and checked on the same inputs, so nothing is clipped: the error is int8 rounding only
+    @Test
+    void outputsStayWithinTheReportedError() {
+        NeuralNetwork network = network();
+        List<TrainingExample> examples = TestNetworks.examples(13, 200, 16, 4, true);
+        CompiledNetwork reference = network.compile();
+        QuantizedNetwork quantized = network.quantize(examples);
+
+        QuantizedNetwork.AccuracyReport report = quantized.compare(reference, examples);
+        assertEquals(examples.size(), report.examples);
+        assertTrue(report.maxAbsoluteError < 0.02, report.toString());
+        assertTrue(report.meanAbsoluteError <= report.rootMeanSquaredError, report.toString());
+        assertTrue(report.argmaxAgreement > 0.9, report.toString());
+
+        double[][] X = new double[examples.size()][];
+        for (int j = 0; j < X.length; j++) {
+            X[j] = examples.get(j).X;
+        }
+        double[][] batch = quantized.predictBatch(X);
+        for (int j = 0; j < X.length; j++) {
+            double[] expected = reference.predict(X[j]), one = quantized.predict(X[j]);
+            for (int i = 0; i < expected.length; i++) {
+                assertTrue(Math.abs(one[i] - expected[i]) <= report.maxAbsoluteError, "sample " + j + ", output " + i);
+                assertEquals(one[i], batch[j][i], 1e-12, "batch vs single, sample " + j + ", output " + i);
+            }
+        }
+    }
+
+    @Test
+    void rejectsWrongInputSize() {
+        QuantizedNetwork quantized = network().quantize(TestNetworks.examples(13, 10, 16, 4, true));
+        assertThrows(IllegalArgumentException.class, () -> quantized.predict(new double[15]));
+        assertThrows(IllegalArgumentException.class, () -> quantized.predictBatch(new double[][]{new double[16], new double[17]}));
+    }
+}
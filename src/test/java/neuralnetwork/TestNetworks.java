@@ -0,0 +1,76 @@
+package neuralnetwork;
+
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.TrainingExample;
+import neuralnetwork.util.MechIndex;
+import neuralnetwork.util.Mechanics;
+import neuralnetwork.util.Operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//seeded fixtures shared by the tests: the same arguments always give the same network and examples
+public final class TestNetworks {
+    private TestNetworks() {}
+
+    //layer l + 1 gets mechanics[l]; every weight and bias is uniform in [-scale, scale)
+    public static NeuralNetwork network(long seed, double scale, int[] sizes, Mechanics... mechanics) {
+        if (mechanics.length != sizes.length - 1) {
+            throw new IllegalArgumentException("expected mechanics for " + (sizes.length - 1) + " layers, got " + mechanics.length);
+        }
+
+        MechIndex[] mechs = new MechIndex[mechanics.length];
+        for (int l = 0; l < mechanics.length; l++) {
+            mechs[l] = new MechIndex(l + 1, mechanics[l]);
+        }
+        NeuralNetwork network = new NeuralNetwork(sizes).setDenseMechanics(mechs);
+
+        Random random = new Random(seed);
+        network.setNetworkParams(network.getNetworkParams().applyEntrywise((theta) -> (2 * random.nextDouble() - 1) * scale), 1);
+        return network;
+    }
+
+    public static Mechanics hidden(Activation activation) {
+        return new Mechanics(activation, Loss.None);
+    }
+
+    public static Mechanics output(Activation activation, Loss loss) {
+        return new Mechanics(activation, loss);
+    }
+
+    //X uniform in [0, 1); Y uniform in [0, 1), or one-hot if oneHot
+    public static List<TrainingExample> examples(long seed, int count, int inputSize, int outputSize, boolean oneHot) {
+        Random random = new Random(seed);
+        List<TrainingExample> examples = new ArrayList<>();
+        for (int e = 0; e < count; e++) {
+            double[] X = new double[inputSize], Y = new double[outputSize];
+            for (int i = 0; i < inputSize; i++) {
+                X[i] = random.nextDouble();
+            }
+            if (oneHot) {
+                Y[random.nextInt(outputSize)] = 1.0;
+            } else {
+                for (int i = 0; i < outputSize; i++) {
+                    Y[i] = random.nextDouble();
+                }
+            }
+            examples.add(new TrainingExample(X, Operations.colVector(Y)));
+        }
+
+        return examples;
+    }
+
+    public static double[][] inputs(long seed, int count, int size) {
+        Random random = new Random(seed);
+        double[][] X = new double[count][size];
+        for (double[] X_j : X) {
+            for (int i = 0; i < size; i++) {
+                X_j[i] = 2 * random.nextDouble() - 1;
+            }
+        }
+
+        return X;
+    }
+}
@@ -0,0 +1,38 @@
+package neuralnetwork.activation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+//gradient check: every closed-form derivative against a finite difference of the activation itself
+class ActivationTest {
+    private static final double[] zs = {-2.0, -0.5, 0.3, 1.7}; //no kinks (ReLU at 0)
+
+    @Test
+    void sigmoid() { check(Activation.Sigmoid); }
+
+    @Test
+    void relu() { check(Activation.ReLU); }
+
+    @Test
+    void tanh() { check(Activation.tanh); }
+
+    @Test
+    void softmax() { check(Activation.Softmax); }
+
+    @Test
+    void linear() { check(Activation.Linear); }
+
+    private static void check(Activation activation) {
+        double[] vector = zs.clone(); //the vector kernel over the whole range
+        activation.applyPartialDerivativeInPlace(vector, 0, vector.length);
+
+        for (int i = 0; i < zs.length; i++) {
+            double numeric = activation.numericPartialDerivative(zs, i);
+            double tolerance = 1e-3 * Math.max(1.0, Math.abs(numeric)); //forward difference with h = 1e-4
+
+            assertEquals(numeric, activation.autoApplyPartialDerivative(zs, i), tolerance, "derivative at z[" + i + "]");
+            assertEquals(numeric, vector[i], tolerance, "vector derivative at z[" + i + "]");
+        }
+    }
+}
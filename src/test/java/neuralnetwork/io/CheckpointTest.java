@@ -0,0 +1,153 @@
+package neuralnetwork.io;
+
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.Precision;
+import neuralnetwork.TestNetworks;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.util.MechIndex;
+import neuralnetwork.util.Mechanics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CheckpointTest {
+    @TempDir
+    Path dir;
+
+    //100x100 weights are more than one block buffer, so the chunking is exercised too
+    private static NeuralNetwork network() {
+        NeuralNetwork network = TestNetworks.network(7, 1.0, new int[]{100, 100, 3}, TestNetworks.hidden(Activation.tanh),
+                TestNetworks.output(Activation.Sigmoid, Loss.BinaryCrossentropy));
+        network.getLayer(1).setMechanics(new MechIndex(4, TestNetworks.hidden(Activation.ReLU)));
+
+        return network;
+    }
+
+    @Test
+    void float64RoundTripIsExact() throws IOException {
+        NeuralNetwork expected = network();
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(expected, path);
+
+        assertSameNetwork(expected, Checkpoint.load(path), 0.0);
+    }
+
+    @Test
+    void float32RoundTripKeepsFloatPrecision() throws IOException {
+        NeuralNetwork expected = network();
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(expected, path, Precision.FLOAT32);
+
+        assertSameNetwork(expected, Checkpoint.load(path), 1e-6);
+    }
+
+    @Test
+    void loadIntoReplacesParamsAndMechanics() throws IOException {
+        NeuralNetwork expected = network();
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(expected, path);
+
+        NeuralNetwork actual = new NeuralNetwork(new int[]{100, 100, 3});
+        long version = actual.getVersion();
+        Checkpoint.loadInto(path, actual);
+
+        assertSameNetwork(expected, actual, 0.0);
+        assertTrue(actual.getVersion() != version, "loadInto must invalidate compiled snapshots and caches");
+        assertThrows(IllegalArgumentException.class, () -> Checkpoint.loadInto(path, new NeuralNetwork(new int[]{100, 99, 3})));
+    }
+
+    //the unmapped read TrainingCheckpointer.resume uses, in both precisions
+    @Test
+    void channelReadMatchesMappedLoad() throws IOException {
+        NeuralNetwork expected = network();
+        for (Precision precision : Precision.values()) {
+            Path path = dir.resolve("model-" + precision + ".nnck");
+            Checkpoint.save(expected, path, precision);
+
+            NeuralNetwork mapped = Checkpoint.load(path), read = new NeuralNetwork(new int[]{100, 100, 3});
+            Checkpoint.loadInto(path, read, false);
+            assertSameNetwork(mapped, read, 0.0);
+        }
+    }
+
+    @Test
+    void headerCarriesMagicAndVersion() throws IOException {
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(network(), path);
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(Checkpoint.MAGIC, header.getInt());
+        assertEquals(Checkpoint.VERSION, header.getShort());
+    }
+
+    @Test
+    void rejectsNewerVersion() throws IOException {
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(network(), path);
+        patch(path, 4, ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(0, (short) (Checkpoint.VERSION + 1)));
+
+        IOException e = assertThrows(IOException.class, () -> Checkpoint.load(path));
+        assertTrue(e.getMessage().contains("unsupported checkpoint version"), e.getMessage());
+    }
+
+    @Test
+    void rejectsBadMagicAndTruncation() throws IOException {
+        Path path = dir.resolve("model.nnck");
+        Checkpoint.save(network(), path);
+        long length = Files.size(path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(length - 8);
+        }
+        assertThrows(EOFException.class, () -> Checkpoint.load(path));
+
+        patch(path, 0, ByteBuffer.allocate(4).putInt(0, 0x12345678));
+        IOException e = assertThrows(IOException.class, () -> Checkpoint.load(path));
+        assertEquals("not a checkpoint file", e.getMessage());
+    }
+
+    private static void patch(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    private static void assertSameNetwork(NeuralNetwork expected, NeuralNetwork actual, double relativeDelta) {
+        assertEquals(expected.getNumLayers(), actual.getNumLayers());
+        for (int l = 0; l < expected.getNumLayers(); l++) {
+            Layer e = expected.getLayer(l), a = actual.getLayer(l);
+            assertEquals(e.size(), a.size(), "layer " + l + " size");
+
+            List<Mechanics> em = e.getActualMechanics(), am = a.getActualMechanics();
+            for (int i = 0; i < e.size(); i++) {
+                assertEquals(em.get(i).activation, am.get(i).activation, "layer " + l + ", neuron " + i + " activation");
+                assertEquals(em.get(i).loss, am.get(i).loss, "layer " + l + ", neuron " + i + " loss");
+            }
+
+            assertBlock(e.getWeights().getDDRM().data, a.getWeights().getDDRM().data, relativeDelta, "layer " + l + " W");
+            assertBlock(e.getBiases().getDDRM().data, a.getBiases().getDDRM().data, relativeDelta, "layer " + l + " b");
+        }
+    }
+
+    private static void assertBlock(double[] expected, double[] actual, double relativeDelta, String name) {
+        assertEquals(expected.length, actual.length, name + " length");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], relativeDelta * Math.abs(expected[i]), name + ", entry " + i);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package neuralnetwork.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvIngestionTest {
+    private static final int[] NUMERIC = {1, 2}, TEXT = {0};
+
+    @Test
+    void malformedFieldNamesLineAndColumn() {
+        String csv = "name,x,y\na,1,2\nb,3,oops\n";
+        IOException e = assertThrows(IOException.class, () -> CsvIngestion.read(new StringReader(csv), NUMERIC, TEXT));
+        assertEquals("line 3, column 3 (y): not a number: \"oops\"", e.getMessage());
+    }
+
+    @Test
+    void shortRecordIsRejected() {
+        String csv = "name,x,y\na,1,2\nb,3\n";
+        IOException e = assertThrows(IOException.class, () -> CsvIngestion.read(new StringReader(csv), NUMERIC, TEXT));
+        assertEquals("line 3: expected at least 3 fields, got 2", e.getMessage());
+    }
+
+    @Test
+    void missingValuesAreRejectedByDefault() {
+        String csv = "name,x,y\na,1,2\nb,,4\n";
+        IOException e = assertThrows(IOException.class, () -> CsvIngestion.read(new StringReader(csv), NUMERIC, TEXT));
+        assertEquals("line 3, column 2 (x): missing value", e.getMessage());
+    }
+
+    @Test
+    void missingValuesCanBeImputedWithTheMean() throws IOException {
+        String csv = "name,x,y\na,1,2\nb,,4\nc,5,NaN\n";
+        CsvTable table = CsvIngestion.read(new StringReader(csv), NUMERIC, TEXT, CsvIngestion.MissingValues.IMPUTE_MEAN);
+
+        assertEquals(3.0, table.getNumeric(0, 1), 0.0);
+        assertEquals(3.0, table.getNumeric(1, 2), 0.0);
+        assertEquals(1, table.getStats(0).getMissing());
+        assertEquals(2, table.getStats(0).getCount(), "imputed values don't count towards the stats");
+    }
+
+    //each chunk is imputed with the mean of everything read up to and including it
+    @Test
+    void chunksImputeWithTheRunningMean() throws IOException {
+        String csv = "name,x,y\na,2,0\nb,,0\nc,10,0\nd,,0\n";
+        List<Double> imputed = new ArrayList<>();
+        long rows = CsvIngestion.readChunks(new StringReader(csv), NUMERIC, TEXT, CsvIngestion.MissingValues.IMPUTE_MEAN, 2,
+                (chunk) -> imputed.add(chunk.getNumeric(0, 1)));
+
+        assertEquals(4, rows);
+        assertEquals(List.of(2.0, 6.0), imputed);
+    }
+}
@@ -0,0 +1,128 @@
+package neuralnetwork.io;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestNetworks;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import neuralnetwork.training.LearningAlgorithm;
+import neuralnetwork.training.NetworkParams;
+import neuralnetwork.training.TrainingExample;
+import neuralnetwork.training.TrainingListener;
+import neuralnetwork.training.TrainingStats;
+import neuralnetwork.util.Operations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TrainingCheckpointerTest {
+    @TempDir
+    Path dir;
+
+    private static NeuralNetwork network() {
+        return TestNetworks.network(3, 0.5, new int[]{2, 4, 1}, TestNetworks.hidden(Activation.tanh),
+                TestNetworks.output(Activation.Sigmoid, Loss.BinaryCrossentropy));
+    }
+
+    private static List<TrainingExample> examples() {
+        List<TrainingExample> examples = new ArrayList<>();
+        for (int x = 0; x < 2; x++) {
+            for (int y = 0; y < 2; y++) {
+                examples.add(new TrainingExample(new double[]{x, y}, Operations.colVector(new double[]{x ^ y})));
+            }
+        }
+
+        return examples;
+    }
+
+    @Test
+    void finalCheckpointHoldsTheTrainedParams() throws IOException {
+        NeuralNetwork network = network();
+        Path path = dir.resolve("run.nnck");
+        LearningAlgorithm algorithm = LearningAlgorithm.BatchGradientDescent(0.5, 5);
+        try (TrainingCheckpointer checkpointer = new TrainingCheckpointer(path, algorithm, 2, 0)) {
+            network.train(examples(), algorithm.addListener(checkpointer));
+        }
+
+        assertSameParams(network.getNetworkParams(), Checkpoint.load(path).getNetworkParams());
+        assertFalse(Files.exists(dir.resolve("run.nnck.tmp")), "temp file left behind");
+    }
+
+    //a step that fails after corrupting the params must neither reach the file nor be masked by the checkpointer
+    @Test
+    void failedRunKeepsTheLastGoodCheckpoint() throws IOException {
+        NeuralNetwork network = network();
+        Path path = dir.resolve("run.nnck");
+        LearningAlgorithm algorithm = LearningAlgorithm.BatchGradientDescent(0.5, 10);
+        IllegalStateException failure = new IllegalStateException("step failed");
+        NetworkParams[] lastGood = new NetworkParams[1];
+
+        try (TrainingCheckpointer checkpointer = new TrainingCheckpointer(path, algorithm, 1, 0)) {
+            algorithm.addListener(checkpointer, new TrainingListener() {
+                @Override
+                public void onBatch(TrainingStats stats, NeuralNetwork network) {
+                    lastGood[0] = network.getNetworkParams(); //what the checkpointer just snapshotted
+                    if (stats.getSteps() == 3) {
+                        network.setNetworkParams(lastGood[0].applyEntrywise((theta) -> Double.NaN));
+                        throw failure;
+                    }
+                }
+            });
+
+            IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> network.train(examples(), algorithm));
+            assertSame(failure, thrown);
+        }
+
+        assertSameParams(lastGood[0], Checkpoint.load(path).getNetworkParams());
+    }
+
+    //an interrupted run resumed on a fresh network must end exactly where the uninterrupted one does; the interruption is
+    //mid-epoch, so the shuffle order, the RNG state and the cursor all have to come back, along with the optimizer buffers
+    @Test
+    void resumeContinuesBitForBit() throws IOException {
+        List<TrainingExample> examples = TestNetworks.examples(8, 50, 2, 1, false); //7 mini-batches of 8 per epoch
+        List<Supplier<LearningAlgorithm>> algorithms = List.of(
+                () -> LearningAlgorithm.BatchGradientDescent(0.5, 6),
+                () -> LearningAlgorithm.MiniBatchGradientDescent(0.3, 8, 6, 21),
+                () -> LearningAlgorithm.Adam(0.01, 8, 6, 21),
+                () -> LearningAlgorithm.AdamW(0.01, 0.9, 0.999, 0.01, 8, 6, 21));
+
+        for (int a = 0; a < algorithms.size(); a++) {
+            NeuralNetwork straight = network();
+            straight.train(examples, algorithms.get(a).get());
+
+            Path path = dir.resolve("resume-" + a + ".nnck");
+            int steps = 3 + 2 * a; //mid-epoch for the mini-batch runs
+            LearningAlgorithm interrupted = algorithms.get(a).get().stopWhen((stats, network) -> stats.getSteps() >= steps);
+            try (TrainingCheckpointer checkpointer = new TrainingCheckpointer(path, interrupted, 0, 0)) {
+                network().train(examples, interrupted.addListener(checkpointer));
+            }
+
+            NeuralNetwork resumed = TestNetworks.network(99, 0.5, new int[]{2, 4, 1}, TestNetworks.hidden(Activation.Linear),
+                    TestNetworks.hidden(Activation.Linear)); //shape only: loadInto replaces params and mechanics
+            TrainingCheckpointer.resume(path, resumed, examples, algorithms.get(a).get());
+
+            assertSameParams(straight.getNetworkParams(), resumed.getNetworkParams());
+        }
+    }
+
+    private static void assertSameParams(NetworkParams expected, NetworkParams actual) {
+        assertEquals(expected.blocks(), actual.blocks());
+        for (int k = 0; k < expected.blocks(); k++) {
+            double[] e = expected.block(k), a = actual.block(k);
+            for (int i = 0, size = expected.blockSize(k); i < size; i++) {
+                assertEquals(e[i], a[i], 0.0, "block " + k + ", entry " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package neuralnetwork.loss;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+//gradient check: every closed-form derivative against a finite difference of the loss itself
+class LossTest {
+    private static final double[] predictions = {0.1, 0.35, 0.6, 0.85};
+    private static final double[] targets = {0.0, 0.3, 1.0};
+
+    @Test
+    void derivativesMatchFiniteDifferences() {
+        for (Loss loss : Loss.values()) {
+            for (double yhat : predictions) {
+                for (double y : targets) {
+                    double numeric = loss.numericPartialDerivative(yhat, y);
+                    double tolerance = 1e-3 * Math.max(1.0, Math.abs(numeric)); //forward difference with h = 1e-4
+
+                    assertEquals(numeric, loss.applyPartialDerivative(yhat, y), tolerance, loss + " at yhat = " + yhat + ", y = " + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void saturatedCrossentropyIsFinite() { //a class the softmax/sigmoid pushed to exactly 0 or 1 mustn't make the loss or its gradient NaN
+        assertEquals(0.0, Loss.CategoricalCrossentropy.apply(0.0, 0.0));
+        assertEquals(0.0, Loss.CategoricalCrossentropy.applyPartialDerivative(0.0, 0.0));
+        assertEquals(0.0, Loss.BinaryCrossentropy.apply(1.0, 1.0), 1e-11);
+        assertEquals(0.0, Loss.BinaryCrossentropy.apply(0.0, 0.0), 1e-11);
+
+        double saturated = 1.0 / (1.0 + Math.exp(-40)); //rounds to exactly 1.0
+        assertEquals(1.0, saturated);
+        for (double yhat : new double[]{0.0, 1.0, saturated}) {
+            for (double y : new double[]{0.0, 1.0}) {
+                for (Loss loss : new Loss[]{Loss.BinaryCrossentropy, Loss.CategoricalCrossentropy}) {
+                    assertTrue(Double.isFinite(loss.apply(yhat, y)), loss + " at yhat = " + yhat + ", y = " + y);
+                    assertTrue(Double.isFinite(loss.applyPartialDerivative(yhat, y)), loss + "' at yhat = " + yhat + ", y = " + y);
+                }
+            }
+        }
+
+        //matching targets: the limit of the derivative, -1/yhat resp. 1/(1 - yhat) -> -1 and 1
+        assertEquals(-1.0, Loss.BinaryCrossentropy.applyPartialDerivative(1.0, 1.0), 1e-9);
+        assertEquals(1.0, Loss.BinaryCrossentropy.applyPartialDerivative(0.0, 0.0), 1e-9);
+    }
+}
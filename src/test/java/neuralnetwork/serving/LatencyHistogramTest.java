@@ -0,0 +1,53 @@
+package neuralnetwork.serving;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void exactBelowSixteenMicros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 0; micros < 16; micros++) {
+            histogram.record(micros * 1000 + 999); //truncated to whole microseconds
+        }
+
+        assertEquals(16, histogram.getCount());
+        assertEquals(7, histogram.percentileMicros(0.5));
+        assertEquals(0, histogram.percentileMicros(1.0 / 16));
+        assertEquals(15, histogram.percentileMicros(1.0));
+    }
+
+    //a percentile is its bucket's upper bound: never below the sample, at most 1/16 above it
+    @Test
+    void percentileIsTheBucketUpperBound() {
+        for (long micros = 16; micros < 10_000_000; micros += 1 + micros / 7) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(micros * 1000);
+            histogram.record(100 * micros * 1000); //keeps max above the first bucket
+            long p50 = histogram.percentileMicros(0.5);
+            assertTrue(p50 >= micros && p50 <= micros + micros / 16, micros + "us reported as " + p50 + "us");
+        }
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000); // 1000us: bucket [992, 1023]
+        histogram.record(5_000_000); // 5000us: bucket [4864, 5119], capped at max
+        assertEquals(1023, histogram.percentileMicros(0.5));
+        assertEquals(5000, histogram.percentileMicros(1.0));
+        assertEquals(5000, histogram.getMaxMicros());
+    }
+
+    @Test
+    void resetAndRejectsBadPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42_000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentileMicros(0.99));
+
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileMicros(0.0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileMicros(1.5));
+    }
+}
@@ -0,0 +1,116 @@
+package neuralnetwork.serving;
+
+import neuralnetwork.CompiledNetwork;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestNetworks;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+    private static final int THREADS = 8, PER_THREAD = 200;
+
+    private static NeuralNetwork network() {
+        return TestNetworks.network(9, 0.5, new int[]{6, 16, 3}, TestNetworks.hidden(Activation.ReLU),
+                TestNetworks.output(Activation.Softmax, Loss.CategoricalCrossentropy));
+    }
+
+    //every caller gets its own sample's output back, whatever batch it landed in
+    @Test
+    void concurrentSubmitsMatchSinglePredictions() throws Exception {
+        CompiledNetwork network = network().compile();
+        double[][] X = TestNetworks.inputs(9, THREADS * PER_THREAD, 6);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try (MicroBatcher batcher = new MicroBatcher(network, 32, 2000)) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<CompletableFuture<double[]>>>> submitted = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int first = t * PER_THREAD;
+                submitted.add(executor.submit(() -> {
+                    start.await();
+                    List<CompletableFuture<double[]>> results = new ArrayList<>();
+                    for (int j = first; j < first + PER_THREAD; j++) {
+                        results.add(batcher.submit(X[j]));
+                    }
+                    return results;
+                }));
+            }
+            start.countDown();
+
+            for (int t = 0; t < THREADS; t++) {
+                List<CompletableFuture<double[]>> results = submitted.get(t).get();
+                for (int k = 0; k < PER_THREAD; k++) {
+                    int j = t * PER_THREAD + k;
+                    double[] expected = network.predict(X[j]), actual = results.get(k).get();
+                    for (int i = 0; i < expected.length; i++) {
+                        assertEquals(expected[i], actual[i], 1e-12, "sample " + j + ", output " + i);
+                    }
+                }
+            }
+
+            assertEquals(THREADS * PER_THREAD, batcher.getSamples());
+            assertTrue(batcher.getMeanBatchSize() > 1, "no batching under load: mean batch size " + batcher.getMeanBatchSize());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void closedBatcherRejects() {
+        MicroBatcher batcher = new MicroBatcher(network().compile(), 32, 100);
+        batcher.close();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> batcher.submit(new double[6]).get());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+        assertThrows(IllegalArgumentException.class, () -> batcher.submit(new double[5]));
+    }
+
+    @Test
+    void serverAnswers503OnceTheBatcherIsClosed() throws IOException {
+        try (InferenceServer server = new InferenceServer(network(), 0, 32, 100)) {
+            assertEquals(200, post(server, "0,0,0,0,0,0\n"));
+            assertEquals(400, post(server, "0,0,0\n"));
+
+            server.getBatcher().close();
+            assertEquals(503, post(server, "0,0,0,0,0,0\n"));
+        }
+    }
+
+    private static int post(InferenceServer server, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + "/predict").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int status = connection.getResponseCode();
+        try (InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream()) {
+            in.readAllBytes();
+        }
+        connection.disconnect();
+        return status;
+    }
+}
@@ -0,0 +1,142 @@
+package neuralnetwork.training;
+
+import neuralnetwork.Layer;
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestNetworks;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BackpropagationTest {
+    //600 examples: two full backprop batches and a partial one
+    @Test
+    void sigmoidSquaredErrorMatchesPerExampleReference() {
+        NeuralNetwork network = TestNetworks.network(17, 0.5, new int[]{5, 12, 4}, TestNetworks.hidden(Activation.Sigmoid),
+                TestNetworks.output(Activation.Sigmoid, Loss.SquaredError));
+        assertMatchesReference(network, TestNetworks.examples(17, 600, 5, 4, false));
+    }
+
+    //the reference goes through the full softmax Jacobian, so this also checks the fused a - y error (for one-hot targets)
+    @Test
+    void softmaxCrossentropyMatchesPerExampleReference() {
+        NeuralNetwork network = TestNetworks.network(18, 0.5, new int[]{5, 12, 12, 4}, TestNetworks.hidden(Activation.tanh),
+                TestNetworks.hidden(Activation.Sigmoid), TestNetworks.output(Activation.Softmax, Loss.CategoricalCrossentropy));
+        assertMatchesReference(network, TestNetworks.examples(18, 600, 5, 4, true));
+    }
+
+    private static void assertMatchesReference(NeuralNetwork network, List<TrainingExample> examples) {
+        double[][][] expected = referenceGradient(network, examples);
+        LearningAlgorithm algorithm = LearningAlgorithm.BatchGradientDescent(0.1, 1).init(examples, network.getNetworkParams().skeleton());
+        NetworkParams actual = algorithm.calculateGradient(network, examples);
+
+        for (int l = 1; l < network.getNumLayers(); l++) {
+            assertArray(expected[0][l], actual.TW.get(l).getDDRM().data, "W_" + l);
+            assertArray(expected[1][l], actual.Tb.get(l).getDDRM().data, "b_" + l);
+        }
+    }
+
+    //{dW, db} per layer, averaged over the examples: a plain loop over one sample at a time, delta_l * a_(l-1)^T
+    private static double[][][] referenceGradient(NeuralNetwork network, List<TrainingExample> examples) {
+        int L = network.getNumLayers() - 1;
+        double[][] dW = new double[L + 1][], db = new double[L + 1][];
+        for (int l = 1; l <= L; l++) {
+            Layer layer = network.getLayer(l);
+            dW[l] = new double[layer.getWeights().getNumElements()];
+            db[l] = new double[layer.size()];
+        }
+
+        for (TrainingExample example : examples) {
+            double[][] a = new double[L + 1][], z = new double[L + 1][];
+            a[0] = example.X;
+            for (int l = 1; l <= L; l++) {
+                Layer layer = network.getLayer(l);
+                double[] W = layer.getWeights().getDDRM().data, b = layer.getBiases().getDDRM().data;
+                int size = layer.size(), prev = a[l - 1].length;
+
+                z[l] = new double[size];
+                for (int i = 0; i < size; i++) {
+                    double sum = b[i];
+                    for (int k = 0; k < prev; k++) {
+                        sum += W[i * prev + k] * a[l - 1][k];
+                    }
+                    z[l][i] = sum;
+                }
+                a[l] = z[l].clone();
+                layer.getStandardMechanics().activation.applyInPlace(a[l], 0, size);
+            }
+
+            Layer output = network.getOutputLayer();
+            Loss loss = output.getStandardMechanics().loss;
+            double[] dJ_da = new double[a[L].length];
+            for (int i = 0; i < dJ_da.length; i++) {
+                dJ_da[i] = loss.applyPartialDerivative(a[L][i], example.Y.get(i));
+            }
+
+            double[] delta;
+            if (output.getStandardMechanics().activation == Activation.Softmax) { // delta_j = sum_i dJ/da_i * a_i * ([i == j] - a_j)
+                delta = new double[dJ_da.length];
+                for (int j = 0; j < delta.length; j++) {
+                    for (int i = 0; i < delta.length; i++) {
+                        delta[j] += dJ_da[i] * a[L][i] * (((i == j) ? 1.0 : 0.0) - a[L][j]);
+                    }
+                }
+            } else {
+                delta = prime(output, z[L]);
+                for (int i = 0; i < delta.length; i++) {
+                    delta[i] *= dJ_da[i];
+                }
+            }
+
+            for (int l = L; l >= 1; l--) {
+                int prev = a[l - 1].length;
+                for (int i = 0; i < delta.length; i++) {
+                    for (int k = 0; k < prev; k++) {
+                        dW[l][i * prev + k] += delta[i] * a[l - 1][k];
+                    }
+                    db[l][i] += delta[i];
+                }
+
+                if (l > 1) { // delta_(l-1) = W_l^T delta_l * f'(z_(l-1))
+                    double[] W = network.getLayer(l).getWeights().getDDRM().data;
+                    double[] next = prime(network.getLayer(l - 1), z[l - 1]);
+                    for (int k = 0; k < prev; k++) {
+                        double sum = 0.0;
+                        for (int i = 0; i < delta.length; i++) {
+                            sum += W[i * prev + k] * delta[i];
+                        }
+                        next[k] *= sum;
+                    }
+                    delta = next;
+                }
+            }
+        }
+
+        for (int l = 1; l <= L; l++) {
+            for (int k = 0; k < dW[l].length; k++) {
+                dW[l][k] /= examples.size();
+            }
+            for (int i = 0; i < db[l].length; i++) {
+                db[l][i] /= examples.size();
+            }
+        }
+
+        return new double[][][]{dW, db};
+    }
+
+    private static double[] prime(Layer layer, double[] z) {
+        double[] prime = z.clone();
+        layer.getStandardMechanics().activation.applyPartialDerivativeInPlace(prime, 0, prime.length);
+        return prime;
+    }
+
+    private static void assertArray(double[] expected, double[] actual, String name) {
+        assertEquals(expected.length, actual.length, name + " length");
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-12, name + ", entry " + i);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package neuralnetwork.training;
+
+import neuralnetwork.NeuralNetwork;
+import neuralnetwork.TestNetworks;
+import neuralnetwork.activation.Activation;
+import neuralnetwork.loss.Loss;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelGradientTest {
+    @Test
+    void parallelGradientMatchesSequential() {
+        NeuralNetwork network = TestNetworks.network(42, 0.5, new int[]{6, 16, 16, 3}, TestNetworks.hidden(Activation.Sigmoid),
+                TestNetworks.hidden(Activation.tanh), TestNetworks.output(Activation.Sigmoid, Loss.BinaryCrossentropy));
+        List<TrainingExample> examples = TestNetworks.examples(42, 1000, 6, 3, false);
+
+        NetworkParams skeleton = network.getNetworkParams().skeleton();
+        LearningAlgorithm sequential = LearningAlgorithm.BatchGradientDescent(0.1, 1).init(examples, skeleton);
+        LearningAlgorithm parallel = LearningAlgorithm.BatchGradientDescent(0.1, 1).parallel(4).init(examples, skeleton);
+
+        NetworkParams expected = sequential.calculateGradient(network, examples);
+        NetworkParams actual = parallel.calculateGradient(network, examples);
+        parallel.trainingFinished(network); //shuts down the pool parallel(4) made
+
+        for (int k = 0; k < expected.blocks(); k++) {
+            double[] e = expected.block(k), a = actual.block(k);
+            for (int i = 0, size = expected.blockSize(k); i < size; i++) {
+                assertEquals(e[i], a[i], 1e-12, "block " + k + ", entry " + i);
+            }
+        }
+        assertEquals(sequential.getStats().getLoss(), parallel.getStats().getLoss(), 1e-12);
+    }
+}